@@ -0,0 +1,105 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.Format;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.resource.NormalizeFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the index parsing and search against synthetic index pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmark {
+
+	/**
+	 * Amount of repositories of the index.
+	 */
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	/**
+	 * Repository name prefix, accented or not.
+	 */
+	@Param({ "project", "élément" })
+	public String prefix;
+
+	private String page;
+
+	private List<String> names;
+
+	private RepositoryIndex index;
+
+	@Setup
+	public void setup() throws IOException {
+		final StringBuilder builder = new StringBuilder("<html><body><pre><a href=\"/\">Parent Directory</a>\n");
+		names = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			final String name = prefix + "-" + Integer.toString(i, 36) + "-repository";
+			names.add(name);
+			builder.append("<a href=\"").append(name).append("/\">").append(name).append("/</a>\n");
+		}
+		page = builder.append("</pre></body></html>").toString();
+		index = parse();
+	}
+
+	/**
+	 * Streaming parse of the whole page into a searchable index.
+	 */
+	@Benchmark
+	public RepositoryIndex parse() throws IOException {
+		final List<String> hrefs = new ArrayList<>();
+		HrefReader.read(new StringReader(page), hrefs::add);
+		final List<String> result = new ArrayList<>(hrefs.size());
+		hrefs.stream().map(h -> StringUtils.removeEnd(h, "/")).filter(StringUtils::isNotEmpty).forEach(result::add);
+		return new RepositoryIndex("http://localhost/", result, null, null);
+	}
+
+	/**
+	 * First page of a selective search.
+	 */
+	@Benchmark
+	public List<String> searchSelective() {
+		return index.search(Integer.toString(size / 2, 36) + "-rep", 10);
+	}
+
+	/**
+	 * First page of a search matching all repositories.
+	 */
+	@Benchmark
+	public List<String> searchAll() {
+		return index.search("repo", 10);
+	}
+
+	/**
+	 * Normalization of all names, as done per query before the index.
+	 */
+	@Benchmark
+	public void normalize(final Blackhole blackhole) {
+		final Format format = new NormalizeFormat();
+		for (final String name : names) {
+			blackhole.consume(format.format(name));
+		}
+	}
+}
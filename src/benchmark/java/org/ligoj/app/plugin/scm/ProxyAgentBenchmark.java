@@ -0,0 +1,162 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.dao.SubscriptionRepository;
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.IGroupRepository;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.resource.node.ParameterValueResource;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Benchmarks of the creation parameter mapping and of the exists/create round trips against a local stub proxy agent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyAgentBenchmark {
+
+	private static final String NODE = "service:scm:bench:node";
+
+	private HttpServer agent;
+
+	private AbstractIndexBasedPluginResource resource;
+
+	private Map<String, String> parameters;
+
+	private List<String> names;
+
+	/**
+	 * The last created subscription. Each creation uses its own subscription, so it is not deduplicated.
+	 */
+	private final AtomicInteger subscriptions = new AtomicInteger();
+
+	@Setup
+	public void setup() throws IOException {
+		// Stub proxy agent: one exit code per requested repository
+		agent = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		agent.createContext("/", exchange -> {
+			final String body;
+			try (InputStream input = exchange.getRequestBody()) {
+				body = IOUtils.toString(input, StandardCharsets.UTF_8);
+			}
+			final String response = body.contains("REPOSITORIES")
+					? StringUtils.repeat("1", " ", AbstractIndexBasedPluginResource.EXISTS_BATCH_SIZE)
+					: body.contains("REPOSITORY") ? "1" : "0";
+			final byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(bytes);
+			}
+		});
+		agent.start();
+
+		parameters = new HashMap<>();
+		parameters.put("service:scm:url", "http://localhost:" + agent.getAddress().getPort() + "/scm");
+		parameters.put("service:scm:url-proxy-agent", "http://localhost:" + agent.getAddress().getPort() + "/");
+		parameters.put("service:scm:user", "user");
+		parameters.put("service:scm:password", "secret");
+		parameters.put("service:scm:secret-key", "key");
+		parameters.put("service:scm:ou", "ligoj");
+		parameters.put("service:scm:project", "plugin");
+		parameters.put("service:scm:repository", "ligoj-plugin");
+		parameters.put("service:scm:ldapgroups", "ligoj-a,ligoj-b");
+		names = new ArrayList<>();
+		for (int i = 0; i < AbstractIndexBasedPluginResource.EXISTS_BATCH_SIZE; i++) {
+			names.add("repository-" + i);
+		}
+
+		final IGroupRepository groups = Mockito.mock(IGroupRepository.class);
+		final GroupOrg group = Mockito.mock(GroupOrg.class);
+		Mockito.when(group.getDn()).thenReturn("cn=group,ou=groups,dc=sample,dc=com");
+		Mockito.when(groups.findById(Mockito.anyString())).thenReturn(group);
+		final Project project = new Project();
+		project.setPkey("ligoj");
+		final Subscription subscription = new Subscription();
+		subscription.setProject(project);
+
+		resource = new AbstractIndexBasedPluginResource("service:scm:bench", "bench") {
+			{
+				pvResource = Mockito.mock(ParameterValueResource.class);
+				Mockito.when(pvResource.getNodeParameters(NODE)).thenAnswer(i -> new HashMap<>(parameters));
+				Mockito.when(pvResource.getSubscriptionParameters(Mockito.anyInt()))
+						.thenAnswer(i -> new HashMap<>(parameters));
+				subscriptionRepository = Mockito.mock(SubscriptionRepository.class);
+				Mockito.when(subscriptionRepository.findOne(Mockito.anyInt())).thenReturn(subscription);
+				existsBatchScript = "exists-batch";
+			}
+
+			@Override
+			protected IGroupRepository getGroup() {
+				return groups;
+			}
+		};
+	}
+
+	@TearDown
+	public void tearDown() {
+		agent.stop(0);
+	}
+
+	/**
+	 * Validation and mapping of the create script parameters.
+	 */
+	@Benchmark
+	public Map<String, String> prepareCreation() {
+		return resource.prepareCreation(1);
+	}
+
+	/**
+	 * Full creation round trip, never answered by the creation deduplicator.
+	 */
+	@Benchmark
+	public void create() throws Exception {
+		resource.create(subscriptions.incrementAndGet());
+	}
+
+	/**
+	 * Single existence check round trip.
+	 */
+	@Benchmark
+	public boolean exists() {
+		return resource.exists(NODE, "ligoj-plugin");
+	}
+
+	/**
+	 * Batched existence check round trip.
+	 */
+	@Benchmark
+	public Map<String, Boolean> existsAll() {
+		return resource.existsAll(NODE, names);
+	}
+}
@@ -1,41 +1,83 @@
 package org.ligoj.app.plugin.scm;
 
-import java.text.Format;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityNotFoundException;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.GET;
 import javax.ws.rs.HttpMethod;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.ligoj.app.api.SubscriptionStatusWithData;
+import org.ligoj.app.dao.ProjectRepository;
 import org.ligoj.app.iam.IGroupRepository;
 import org.ligoj.app.iam.IamProvider;
+import org.ligoj.app.model.Node;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
-import org.ligoj.app.resource.NormalizeFormat;
 import org.ligoj.app.resource.node.ParameterResource;
 import org.ligoj.app.resource.node.ParameterValueResource;
 import org.ligoj.app.resource.plugin.AbstractToolPluginResource;
-import org.ligoj.app.resource.plugin.AuthCurlProcessor;
 import org.ligoj.app.resource.plugin.CurlProcessor;
 import org.ligoj.app.resource.plugin.CurlRequest;
+import org.ligoj.app.resource.plugin.HttpResponseCallback;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.json.InMemoryPagination;
+import org.ligoj.bootstrap.core.json.TableItem;
 import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Basic plug-in based on index to populate existing resources.
@@ -43,10 +85,72 @@ import org.springframework.data.domain.PageRequest;
  * @see "https://docs.atlassian.com/atlassian-confluence/REST/latest"
  */
 @Produces(MediaType.APPLICATION_JSON)
-public abstract class AbstractIndexBasedPluginResource extends AbstractToolPluginResource {
+@Slf4j
+public abstract class AbstractIndexBasedPluginResource extends AbstractToolPluginResource implements DisposableBean {
 
 	public static final String HEADER_TOKEN = "token";
 
+	/**
+	 * The creation operation, not idempotent.
+	 */
+	public static final String OPERATION_CREATE = "create";
+
+	/**
+	 * The resolved parameter holding the node identifier, used as node tag of the metrics.
+	 */
+	public static final String PARAMETER_NODE = "NODE";
+
+	/**
+	 * Maximum amount of repositories checked by a single batch exists script invocation.
+	 */
+	public static final int EXISTS_BATCH_SIZE = 100;
+
+	/**
+	 * Accepted repository full name: path segments of letters, digits, '_', '.' and '-'.
+	 */
+	public static final Pattern REPOSITORY_PATTERN = Pattern.compile("[\\w.\\-]+(/[\\w.\\-]+)*");
+
+	/**
+	 * Maximum amount of concurrent creations of a bulk provisioning.
+	 */
+	public static final int MAX_CREATION_CONCURRENCY = 16;
+
+	/**
+	 * Default maximal amount of creations per second and per proxy agent, when the node does not define the
+	 * "creation-rate" parameter.
+	 */
+	public static final double DEFAULT_CREATION_RATE = 5;
+
+	/**
+	 * Maximum amount of requested pages of a paged index.
+	 */
+	public static final int MAX_INDEX_PAGES = 1000;
+
+	/**
+	 * Maximum size of a page of repositories.
+	 */
+	public static final int MAX_PAGE_SIZE = 100;
+
+	/**
+	 * Maximal waiting time of the index changes, in seconds.
+	 */
+	public static final int MAX_CHANGES_TIMEOUT = 60;
+
+	/**
+	 * Amount of platform threads processing the asynchronous requests.
+	 */
+	public static final int ASYNC_WORKERS = 32;
+
+	/**
+	 * Maximal processing time of the asynchronous requests, in seconds.
+	 */
+	public static final int MAX_ASYNC_TIMEOUT = 120;
+
+	/**
+	 * Reader of the metadata script response.
+	 */
+	private static final ObjectReader METADATA_READER = new ObjectMapper().readerFor(RepositoryMetadata.class);
+
 	/**
 	 * Base URL
 	 */
@@ -77,6 +181,16 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	 */
 	protected final String parameterLdapGroups;
 
+	/**
+	 * Index format: "html" (default), "json" or "paged".
+	 */
+	protected final String parameterIndexFormat;
+
+	/**
+	 * Maximal amount of creations per second and per proxy agent.
+	 */
+	protected final String parameterCreationRate;
+
 	/**
 	 * User authentication.
 	 */
@@ -106,6 +220,95 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	@Autowired
 	protected IamProvider[] iamProvider;
 
+	@Autowired
+	protected ProjectRepository projectRepository;
+
+	/**
+	 * Index readers, by format.
+	 */
+	protected final Map<String, IndexProvider> indexProviders = new HashMap<>();
+
+	/**
+	 * Resolved parameters, per node and subscription.
+	 */
+	protected ParameterCache parameterCache;
+
+	/**
+	 * Repository index cache, per node.
+	 */
+	protected RepositoryIndexCache indexCache = new RepositoryIndexCache();
+
+	/**
+	 * Asynchronous repository creations.
+	 */
+	protected CreationJobRegistry creationJobs = new CreationJobRegistry();
+
+	/**
+	 * Executor of the asynchronous requests.
+	 */
+	protected ExecutorService asyncExecutor = ScmExecutors.newExecutor("scm-async", ASYNC_WORKERS);
+
+	/**
+	 * In flight and recent repository creations, by subscription and repository.
+	 */
+	protected CreationDeduplicator creations = new CreationDeduplicator();
+
+	/**
+	 * Rate limiter of the creations, per proxy agent.
+	 */
+	protected RateLimiter creationRateLimiter = new RateLimiter(DEFAULT_CREATION_RATE);
+
+	/**
+	 * Group DN cache used to resolve the LDAP groups of the created repositories.
+	 */
+	protected GroupDnCache groupDnCache = new GroupDnCache();
+
+	/**
+	 * Pool and timeout settings of the processors.
+	 */
+	protected HttpClientSettings httpSettings = HttpClientSettings.fromSystemProperties();
+
+	/**
+	 * Keep-alive processors, per credentials.
+	 */
+	protected CurlProcessorPool processorPool = new CurlProcessorPool(httpSettings.getIdle(),
+			httpSettings.getPoolSize());
+
+	/**
+	 * Status checks with timeout and short retention.
+	 */
+	protected StatusChecker statusChecker = new StatusChecker();
+
+	/**
+	 * In flight repository validations.
+	 */
+	protected SingleFlight<String, String> repositoryFlights = new SingleFlight<>();
+
+	/**
+	 * Circuit breaker of the proxy agent calls, per proxy agent.
+	 */
+	protected CircuitBreaker agentBreaker = new CircuitBreaker();
+
+	/**
+	 * Routing of the calls among the proxy agents of a node.
+	 */
+	protected ProxyAgentPool agentPool = new ProxyAgentPool(agentBreaker);
+
+	/**
+	 * Background collection of the repository metadata.
+	 */
+	protected MetadataEnricher metadataEnricher = new MetadataEnricher();
+
+	/**
+	 * Concurrent outbound calls limiter, per node.
+	 */
+	protected ConcurrencyLimiter nodeLimiter = new ConcurrencyLimiter(ScmExecutors.getNodeConcurrency());
+
+	/**
+	 * Metrics of the outbound calls.
+	 */
+	protected ScmMetrics metrics;
+
 	/**
 	 * Plug-in key.
 	 */
@@ -126,6 +329,21 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	 */
 	protected String existsScript;
 
+	/**
+	 * The name of the batch exists script. It receives the names separated by line feeds in the "REPOSITORIES"
+	 * variable, and replies the exit code of each name, in the same order and separated by white spaces. The exit
+	 * codes are the ones of the exists script. Like the other scripts, it is defined by the sub-class constructor,
+	 * only when its proxy agent provides this script. When undefined, the names are checked one by one with the
+	 * exists script.
+	 */
+	protected String existsBatchScript;
+
+	/**
+	 * The name of the metadata script, replying the {@link RepositoryMetadata} of a repository as JSON. When
+	 * undefined, the subscription status contains the repository root page.
+	 */
+	protected String metadataScript;
+
 	/**
 	 * @param key
 	 *            Plug-in key.
@@ -143,8 +361,15 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		this.parameterUser = ScmResource.SERVICE_KEY + ":user";
 		this.parameterPassword = ScmResource.SERVICE_KEY + ":password";
 		this.parameterIndex = ScmResource.SERVICE_KEY + ":index";
+		this.parameterIndexFormat = ScmResource.SERVICE_KEY + ":index-format";
+		this.parameterCreationRate = ScmResource.SERVICE_KEY + ":creation-rate";
 		this.parameterSecretKey = ScmResource.SERVICE_KEY + ":secret-key";
 		this.simpleName = simpleName;
+		this.parameterCache = new ParameterCache(Arrays.asList(parameterUser, parameterPassword, parameterSecretKey));
+		this.metrics = newMetrics(Metrics.globalRegistry);
+		indexProviders.put("html", new HtmlIndexProvider());
+		indexProviders.put("json", new JsonIndexProvider());
+		indexProviders.put("paged", new PagedJsonIndexProvider());
 	}
 
 	@Override
@@ -152,6 +377,20 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		return key;
 	}
 
+	/**
+	 * Stop the background executors and close the pooled HTTP clients.
+	 */
+	@Override
+	public void destroy() {
+		asyncExecutor.shutdownNow();
+		creationJobs.shutdown();
+		statusChecker.shutdown();
+		agentBreaker.shutdown();
+		metadataEnricher.shutdown();
+		indexCache.shutdown();
+		processorPool.clear();
+	}
+
 	/**
 	 * Check the server is available.
 	 */
@@ -159,34 +398,49 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		// Validate the access only for HTTP URL and having a root access
 		if (getRepositoryUrl(parameters).startsWith("http")
 				&& Boolean.valueOf(parameters.getOrDefault(parameterIndex, Boolean.FALSE.toString()))) {
-			validateAdminAccess(parameters, newCurlProcessor(parameters));
+			validateAdminAccess(parameters);
 		}
 	}
 
 	/**
-	 * Create a new processor using a basic authentication header.
+	 * Return a new processor using a basic authentication header and a specific response callback. The processor is
+	 * pooled by {@link #process(String, Map, HttpResponseCallback, CurlRequest)} and shared by the requests using the
+	 * same credentials, so the callback must be stateless.
 	 * 
 	 * @param parameters
 	 *            The subscription parameters.
+	 * @param callback
+	 *            The stateless response callback, may be <code>null</code> for the default one.
 	 * @return The configured {@link CurlProcessor} to use.
 	 */
-	protected CurlProcessor newCurlProcessor(final Map<String, String> parameters) {
-		final String user = parameters.get(parameterUser);
-		final String password = StringUtils.trimToEmpty(parameters.get(parameterPassword));
-
+	protected CurlProcessor newCurlProcessor(final Map<String, String> parameters,
+			final HttpResponseCallback callback) {
 		// Authenticated access
-		return new AuthCurlProcessor(user, password);
+		return new PooledCurlProcessor(parameters.get(parameterUser),
+				StringUtils.trimToEmpty(parameters.get(parameterPassword)), callback, httpSettings);
 	}
 
 	/**
-	 * Validate the administration connectivity. Expect an authenticated connection.
+	 * Return the processor pool key of the given credentials and callback. The password is hashed.
 	 */
-	private void validateAdminAccess(final Map<String, String> parameters, final CurlProcessor processor) {
-		final CurlRequest request = new CurlRequest(HttpMethod.GET,
-				StringUtils.appendIfMissing(parameters.get(parameterUrl), "/"), null);
-		request.setSaveResponse(true);
+	private String toPoolKey(final String user, final String password, final HttpResponseCallback callback) {
+		return user + "\n" + DigestUtils.sha256Hex(password) + "\n"
+				+ (callback == null ? "" : callback.getClass().getName());
+	}
+
+	/**
+	 * Validate the administration connectivity. Expect an authenticated connection. The index is read until the
+	 * administration entry is found.
+	 */
+	private void validateAdminAccess(final Map<String, String> parameters) {
+		final IndexProvider provider = getIndexProvider(parameters);
+		final IndexRequest request = new IndexRequest(provider.getPageUrl(getIndexUrl(parameters), 0), provider,
+				null);
+		request.setTerminal(provider::isAdminEntry);
 		// Request all repositories access
-		if (!processor.process(request) || !StringUtils.contains(request.getResponse(), "<a href=\"/\">")) {
+		if (!process("admin", parameters, new IndexResponseCallback(), request)
+				|| (provider.isAdminEntryRequired()
+						&& request.getEntries().stream().noneMatch(provider::isAdminEntry))) {
 			throw new ValidationJsonException(parameterUrl, simpleName + "-admin", parameters.get(parameterUser));
 		}
 	}
@@ -199,14 +453,17 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	 * @return Content of root of given repository.
 	 */
 	protected String validateRepository(final Map<String, String> parameters) {
-		final CurlRequest request = new CurlRequest(HttpMethod.GET, getRepositoryUrl(parameters), null);
-		request.setSaveResponse(true);
-		// Check repository exists
-		if (!newCurlProcessor(parameters).process(request)) {
-			throw new ValidationJsonException(parameterRepository, simpleName + "-repository",
-					parameters.get(parameterRepository));
-		}
-		return request.getResponse();
+		// Concurrent validations of the same repository share a single request
+		return repositoryFlights.execute(toCheckKey(getRepositoryUrl(parameters), parameters), () -> {
+			final CurlRequest request = new CurlRequest(HttpMethod.GET, getRepositoryUrl(parameters), null);
+			request.setSaveResponse(true);
+			// Check repository exists
+			if (!process("repository", parameters, null, request)) {
+				throw new ValidationJsonException(parameterRepository, simpleName + "-repository",
+						parameters.get(parameterRepository));
+			}
+			return request.getResponse();
+		});
 	}
 
 	/**
@@ -223,7 +480,7 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	@Override
 	public void link(final int subscription) {
 		// Validate the repository only
-		validateRepository(subscriptionResource.getParameters(subscription));
+		validateRepository(withNode(getNodeId(subscription), subscriptionResource.getParameters(subscription)));
 	}
 
 	/**
@@ -240,28 +497,182 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	@Consumes(MediaType.APPLICATION_JSON)
 	public List<NamedBean<String>> findAllByName(@PathParam("node") final String node,
 			@PathParam("criteria") final String criteria) {
-		final Map<String, String> parameters = pvResource.getNodeParameters(node);
-		final CurlRequest request = new CurlRequest(HttpMethod.GET,
-				StringUtils.appendIfMissing(parameters.get(parameterUrl), "/"), null);
-		request.setSaveResponse(true);
-		newCurlProcessor(parameters).process(request);
-
-		// Prepare the context, an ordered set of projects
-		final Format format = new NormalizeFormat();
-		final String formatCriteria = format.format(criteria);
+		final Map<String, String> parameters = getNodeParameters(node);
+		final RepositoryIndex index = indexCache.get(node, getIndexUrl(parameters),
+				previous -> loadIndex(parameters, previous));
+		if (index == null) {
+			// The parameters may have changed
+			invalidateNodeParameters(node);
+		}
+		final List<String> names = index == null ? Collections.emptyList() : index.search(criteria, 10);
 
 		// Limit the result
-		return inMemoryPagination.newPage(Arrays
-				.stream(StringUtils.splitByWholeSeparator(StringUtils.defaultString(request.getResponse()),
-						"<a href=\""))
-				.skip(1).filter(s -> format.format(s).contains(formatCriteria))
-				.map(s -> StringUtils.removeEnd(s.substring(0, Math.max(0, s.indexOf('\"'))), "/"))
-				.filter(((Predicate<String>) String::isEmpty).negate()).map(id -> new NamedBean<>(id, id))
+		return inMemoryPagination.newPage(names.stream().map(id -> new NamedBean<>(id, id))
 				.collect(Collectors.toList()), PageRequest.of(0, 10)).getContent();
 	}
 
 	/**
-	 * Verifies if a repository exists
+	 * Return a page of the repositories matching to the given criteria, with the total amount of matches. Look into
+	 * name only.
+	 * 
+	 * @param node
+	 *            the node to be tested with given parameters.
+	 * @param criteria
+	 *            the search criteria.
+	 * @param page
+	 *            the page index, starting from <code>0</code>.
+	 * @param rows
+	 *            the page size, bounded by {@value #MAX_PAGE_SIZE}.
+	 * @param sort
+	 *            the ordering: "relevance" (default), "name" or "-name" for a descending order.
+	 * @return the requested page.
+	 */
+	@GET
+	@Path("{node}/{criteria}/page")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public TableItem<NamedBean<String>> findAllByNamePage(@PathParam("node") final String node,
+			@PathParam("criteria") final String criteria, @QueryParam("page") @DefaultValue("0") final int page,
+			@QueryParam("rows") @DefaultValue("10") final int rows,
+			@QueryParam("sort") @DefaultValue("relevance") final String sort) {
+		final Map<String, String> parameters = getNodeParameters(node);
+		final RepositoryIndex index = indexCache.get(node, getIndexUrl(parameters),
+				previous -> loadIndex(parameters, previous));
+		final Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(rows, MAX_PAGE_SIZE)),
+				toSort(sort));
+		final Page<String> names = index == null ? new PageImpl<>(Collections.emptyList(), pageable, 0)
+				: index.search(criteria, pageable);
+
+		final TableItem<NamedBean<String>> result = new TableItem<>();
+		result.setData(names.getContent().stream().map(id -> new NamedBean<>(id, id)).collect(Collectors.toList()));
+		result.setRecordsFiltered(names.getTotalElements());
+		result.setRecordsTotal(index == null ? 0 : index.getNames().size());
+		return result;
+	}
+
+	/**
+	 * Return the repositories added to or removed from the index of a node after the given sequence number. When
+	 * there is none, the response is resumed by the next change or by the timeout, the index being refreshed in the
+	 * background when stale. No thread is held while waiting.
+	 * 
+	 * @param node
+	 *            the node to watch.
+	 * @param since
+	 *            the sequence number of the last known change, as returned by the previous call. <code>0</code> to
+	 *            get all retained changes.
+	 * @param timeout
+	 *            the maximal waiting time in seconds, bounded by {@value #MAX_CHANGES_TIMEOUT}.
+	 * @param response
+	 *            the suspended response, resumed with the changes, may be empty when the timeout is reached.
+	 */
+	@GET
+	@Path("changes/{node}")
+	public void getIndexChanges(@PathParam("node") final String node,
+			@QueryParam("since") @DefaultValue("0") final long since,
+			@QueryParam("timeout") @DefaultValue("30") final int timeout, @Suspended final AsyncResponse response) {
+		final Map<String, String> parameters = getNodeParameters(node);
+
+		// Keep the index up to date while watched
+		indexCache.get(node, getIndexUrl(parameters), previous -> loadIndex(parameters, previous));
+		final IndexChangeFeed feed = indexCache.getChanges();
+		if (timeout <= 0) {
+			response.resume(feed.poll(node, since));
+			return;
+		}
+		response.setTimeout(Math.min(timeout, MAX_CHANGES_TIMEOUT), TimeUnit.SECONDS);
+		response.setTimeoutHandler(r -> r.resume(feed.poll(node, since)));
+		final Runnable cancel = feed.subscribe(node, since, response::resume);
+		response.register((CompletionCallback) t -> cancel.run());
+	}
+
+	/**
+	 * Return the index ordering of the given sort parameter.
+	 */
+	private Sort toSort(final String sort) {
+		if (StringUtils.removeStart(sort, "-").equals(RepositoryIndex.SORT_NAME)) {
+			return Sort.by(sort.startsWith("-") ? Sort.Direction.DESC : Sort.Direction.ASC, RepositoryIndex.SORT_NAME);
+		}
+		return Sort.unsorted();
+	}
+
+	/**
+	 * Return the root index URL.
+	 * 
+	 * @param parameters
+	 *            the node parameters.
+	 * @return the root index URL.
+	 */
+	protected String getIndexUrl(final Map<String, String> parameters) {
+		return StringUtils.appendIfMissing(parameters.get(parameterUrl), "/");
+	}
+
+	/**
+	 * Return the index reader of a node, by default the HTML listing.
+	 * 
+	 * @param parameters
+	 *            the node parameters.
+	 * @return the index reader.
+	 */
+	protected IndexProvider getIndexProvider(final Map<String, String> parameters) {
+		final String format = StringUtils.defaultIfBlank(parameters.get(parameterIndexFormat), "html");
+		final IndexProvider provider = indexProviders.get(format);
+		if (provider == null) {
+			throw new ValidationJsonException(parameterIndexFormat, simpleName + "-index-format", format);
+		}
+		return provider;
+	}
+
+	/**
+	 * Load the root index of the SCM server. The validators of the previous snapshot are sent to avoid a full
+	 * download when a not paged index has not changed.
+	 * 
+	 * @param parameters
+	 *            the node parameters.
+	 * @param previous
+	 *            the previous snapshot of this index, may be <code>null</code>.
+	 * @return the index or <code>null</code> when not available.
+	 */
+	protected RepositoryIndex loadIndex(final Map<String, String> parameters, final RepositoryIndex previous) {
+		final IndexProvider provider = getIndexProvider(parameters);
+		final String url = getIndexUrl(parameters);
+		final boolean paged = provider.getPageUrl(url, 1) != null;
+		final List<String> names = new ArrayList<>();
+		List<String> previousPage = null;
+		IndexRequest request = null;
+		for (int page = 0; page < MAX_INDEX_PAGES && provider.getPageUrl(url, page) != null; page++) {
+			request = new IndexRequest(provider.getPageUrl(url, page), provider, paged ? null : previous);
+			if (!process("index", parameters, new IndexResponseCallback(), request)) {
+				return null;
+			}
+			if (request.isNotModified()) {
+				return previous == null ? null : previous.touch();
+			}
+			if (request.getEntries().isEmpty() || request.getEntries().equals(previousPage)) {
+				// Last page, or the server ignores the page parameter
+				break;
+			}
+			previousPage = request.getEntries();
+			names.addAll(toNames(provider, request.getEntries()));
+		}
+		return paged || request == null ? new RepositoryIndex(url, names, null, null)
+				: new RepositoryIndex(url, names, request.getEtag(), request.getLastModified());
+	}
+
+	/**
+	 * Extract the repository names from the entries of the root index.
+	 * 
+	 * @param provider
+	 *            the index reader.
+	 * @param entries
+	 *            the entries of the root index, in the document order.
+	 * @return the repository names, in the index order.
+	 */
+	protected List<String> toNames(final IndexProvider provider, final List<String> entries) {
+		return entries.stream().map(provider::toName).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	/**
+	 * Verifies if a repository exists. The up to date index of the node answers when available and able to list this
+	 * name, the proxy agent otherwise.
 	 * 
 	 * @param node
 	 *            The SCM node to get the url of the proxy agent of.
@@ -273,41 +684,414 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	@Path("{node}/{fullName}/exists")
 	@Consumes(MediaType.APPLICATION_JSON)
 	public boolean exists(@PathParam("node") final String node, @PathParam("fullName") final String fullName) {
-		final Map<String, String> parameters = pvResource.getNodeParameters(node);
-
-		final Map<String, String> params = new HashMap<>();
-		params.put("REPOSITORY", fullName);
-		final ScriptContext context = new ScriptContext();
-		context.setScriptId(existsScript);
-		context.setParameters(params);
-		final CurlRequest request = new CurlRequest(HttpMethod.POST, parameters.get(parameterUrlProxyAgent),
-				ParameterResource.toJSon(context), HttpHeaders.CONTENT_TYPE + ":" + MediaType.APPLICATION_JSON,
-				HEADER_TOKEN + ":" + parameters.remove(parameterSecretKey));
-		request.setSaveResponse(true);
+		checkRepositoryName(fullName);
+		final Map<String, String> parameters = getNodeParameters(node);
+		final RepositoryIndex index = indexCache.getFresh(node, getIndexUrl(parameters));
+		if (index != null && RepositoryIndex.isListable(fullName)) {
+			// Up to date index, no need to ask the proxy agent
+			return index.contains(fullName);
+		}
 
 		// check if exists
-		if (!newCurlProcessor(parameters).process(request)) {
-			request.setResponse("-1");
+		final CurlRequest request = processScript("exists", parameters, parameters.get(parameterUrlProxyAgent),
+				agent -> newScriptRequest(agent, parameters.get(parameterSecretKey), existsScript,
+						Collections.singletonMap("REPOSITORY", fullName)));
+		try {
+			return handleExistenceError(parameters, request);
+		} catch (final RuntimeException e) {
+			// The parameters may have changed
+			invalidateNodeParameters(node);
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Verifies if several repositories exist. The up to date index of the node answers for the names it is able to
+	 * list when available. The other names are sent to the proxy agent by batches of {@value #EXISTS_BATCH_SIZE} when there is a batch exists
+	 * script, one by one with the exists script otherwise.
+	 * 
+	 * @param node
+	 *            The SCM node to get the url of the proxy agent of.
+	 * @param fullNames
+	 *            The full names of the repositories to check.
+	 * @return The existence of each repository, in the given order.
+	 */
+	@POST
+	@Path("{node}/exists")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Map<String, Boolean> existsAll(@PathParam("node") final String node, final List<String> fullNames) {
+		if (fullNames == null) {
+			throw new ValidationJsonException(parameterRepository, "NotNull");
+		}
+		final List<String> names = fullNames.stream().distinct().collect(Collectors.toList());
+		names.forEach(this::checkRepositoryName);
+		final Map<String, String> parameters = getNodeParameters(node);
+		final Map<String, Boolean> result = new LinkedHashMap<>();
+		names.forEach(n -> result.put(n, null));
+		final RepositoryIndex index = indexCache.getFresh(node, getIndexUrl(parameters));
+		final List<String> pending = new ArrayList<>();
+		for (final String name : names) {
+			if (index != null && RepositoryIndex.isListable(name)) {
+				// Up to date index, no need to ask the proxy agent
+				result.put(name, index.contains(name));
+			} else {
+				pending.add(name);
+			}
+		}
+		if (pending.isEmpty()) {
+			return result;
 		}
+		try {
+			if (existsBatchScript == null) {
+				// Sequential calls sharing the same keep-alive connection
+				for (final String name : pending) {
+					result.put(name, handleExistenceError(parameters, processScript("exists", parameters,
+							parameters.get(parameterUrlProxyAgent), agent -> newScriptRequest(agent,
+									parameters.get(parameterSecretKey), existsScript,
+									Collections.singletonMap("REPOSITORY", name)))));
+				}
+			} else {
+				for (int start = 0; start < pending.size(); start += EXISTS_BATCH_SIZE) {
+					final List<String> batch = pending.subList(start,
+							Math.min(pending.size(), start + EXISTS_BATCH_SIZE));
+					final int[] exitCodes = existsBatch(parameters, batch);
+					for (int i = 0; i < exitCodes.length; i++) {
+						result.put(batch.get(i), handleExistenceError(parameters, exitCodes[i]));
+					}
+				}
+			}
+		} catch (final RuntimeException e) {
+			// The parameters may have changed
+			invalidateNodeParameters(node);
+			throw e;
+		}
+		return result;
+	}
 
-		return handleExistenceError(parameters, request);
+	/**
+	 * Check the given repository name is valid, so it can be safely given to the scripts.
+	 * 
+	 * @param fullName
+	 *            The full name of the repository to check.
+	 */
+	protected void checkRepositoryName(final String fullName) {
+		if (!REPOSITORY_PATTERN.matcher(StringUtils.defaultString(fullName)).matches()) {
+			throw new ValidationJsonException(parameterRepository, simpleName + "-repository", fullName);
+		}
+	}
 
+	/**
+	 * Execute the batch exists script for the given names.
+	 */
+	private int[] existsBatch(final Map<String, String> parameters, final List<String> batch) {
+		final Map<String, String> variables = Collections.singletonMap("REPOSITORIES", String.join("\n", batch));
+		final CurlRequest request = processAgents("exists-batch", parameters, parameters.get(parameterUrlProxyAgent),
+				agent -> newScriptRequest(agent, parameters.get(parameterSecretKey), existsBatchScript, variables));
+		if (request == null) {
+			batch.forEach(n -> metrics.exitCode(toNodeTag(parameters), "exists-batch", "-1"));
+			final int[] exitCodes = new int[batch.size()];
+			Arrays.fill(exitCodes, -1);
+			return exitCodes;
+		}
+		final String[] replies = StringUtils.split(StringUtils.defaultString(request.getResponse()));
+		final int[] exitCodes = replies.length == batch.size() ? toExitCodes(replies) : null;
+		if (exitCodes == null) {
+			metrics.exitCode(toNodeTag(parameters), "exists-batch", ScmMetrics.INVALID);
+			throw new ValidationJsonException("Global");
+		}
+		Arrays.stream(replies).forEach(c -> metrics.exitCode(toNodeTag(parameters), "exists-batch", c));
+		return exitCodes;
+	}
+
+	/**
+	 * Parse the signed exit codes replied by a script.
+	 */
+	private int[] toExitCodes(final String[] replies) {
+		try {
+			return Arrays.stream(replies).mapToInt(Integer::parseInt).toArray();
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Build a script execution request for the proxy agent.
+	 * 
+	 * @param url
+	 *            The proxy agent URL.
+	 * @param token
+	 *            The secret key shared with the proxy agent.
+	 * @param scriptId
+	 *            The script to execute.
+	 * @param scriptParameters
+	 *            The script environment variables.
+	 * @return The request to process.
+	 */
+	protected CurlRequest newScriptRequest(final String url, final String token, final String scriptId,
+			final Map<String, String> scriptParameters) {
+		final ScriptContext context = new ScriptContext();
+		context.setScriptId(scriptId);
+		context.setParameters(scriptParameters);
+		final CurlRequest request = new AgentRequest(url, ParameterResource.toJSon(context),
+				HttpHeaders.CONTENT_TYPE + ":" + MediaType.APPLICATION_JSON, HEADER_TOKEN + ":" + token);
+		request.setSaveResponse(true);
+		return request;
+	}
+
+	/**
+	 * Check the status of a node, with its identifier as node tag of the metrics.
+	 * 
+	 * @param node
+	 *            The node identifier.
+	 * @param parameters
+	 *            The node parameters.
+	 * @return <code>true</code> when the node is UP.
+	 * @see #checkStatus(Map)
+	 */
+	public boolean checkStatus(final String node, final Map<String, String> parameters) {
+		return checkStatus(withNode(node, parameters));
 	}
 
 	@Override
 	public boolean checkStatus(final Map<String, String> parameters) {
+		if (!ProxyAgentPool.split(parameters.get(parameterUrlProxyAgent)).isEmpty()
+				&& agentPool.route(parameters.get(parameterUrlProxyAgent)).isEmpty()) {
+			// Status is DOWN while the calls of all proxy agents are rejected
+			throw new BusinessException("The proxy agent doesn't reply");
+		}
+
 		// Status is UP <=> Administration access is UP (if defined)
-		validateAccess(parameters);
-		return true;
+		return statusChecker.check("node:" + toCheckKey(parameters.get(parameterUrl), parameters), () -> {
+			validateAccess(parameters);
+			return true;
+		});
+	}
+
+	/**
+	 * Check the status of a subscription, with the identifier of its node as node tag of the metrics.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param node
+	 *            The node identifier.
+	 * @param parameters
+	 *            The subscription parameters.
+	 * @return The subscription status.
+	 * @see #checkSubscriptionStatus(Map)
+	 */
+	public SubscriptionStatusWithData checkSubscriptionStatus(final int subscription, final String node,
+			final Map<String, String> parameters) {
+		return checkSubscriptionStatus(withNode(node, parameters));
 	}
 
 	@Override
 	public SubscriptionStatusWithData checkSubscriptionStatus(final Map<String, String> parameters) {
 		final SubscriptionStatusWithData nodeStatusWithData = new SubscriptionStatusWithData();
-		nodeStatusWithData.put("info", toData(validateRepository(parameters)));
+		// The status is given by the repository, the collected metadata are only informative
+		nodeStatusWithData.put("info", toData(statusChecker.check(
+				"repository:" + toCheckKey(getRepositoryUrl(parameters), parameters),
+				() -> validateRepository(parameters))));
+		final RepositoryMetadata metadata = getMetadata(parameters);
+		if (metadata != null) {
+			nodeStatusWithData.put("metadata", metadata);
+		}
+		nodeStatusWithData.put("proxyAgent", agentPool.getStatus(parameters.get(parameterUrlProxyAgent)));
 		return nodeStatusWithData;
 	}
 
+	/**
+	 * Return the latest collected metadata of a subscription repository, and register its periodic collection. The
+	 * collector keeps the secret parameters encrypted, and each view replaces them with the current ones.
+	 * 
+	 * @param parameters
+	 *            The subscription parameters.
+	 * @return The latest metadata, or <code>null</code> when not yet collected or when there is no metadata script.
+	 */
+	protected RepositoryMetadata getMetadata(final Map<String, String> parameters) {
+		if (metadataScript == null) {
+			return null;
+		}
+		final Supplier<Map<String, String>> sealed = parameterCache.seal(parameters);
+		return metadataEnricher.get(getRepositoryUrl(parameters), () -> collectMetadata(sealed.get()));
+	}
+
+	/**
+	 * Execute the metadata script of a subscription repository through the proxy agent.
+	 * 
+	 * @param parameters
+	 *            The subscription parameters.
+	 * @return The repository metadata, or <code>null</code> when the proxy agent did not reply.
+	 */
+	protected RepositoryMetadata collectMetadata(final Map<String, String> parameters) {
+		final CurlRequest request = processAgents("metadata", parameters, parameters.get(parameterUrlProxyAgent),
+				agent -> newScriptRequest(agent, parameters.get(parameterSecretKey), metadataScript,
+						Collections.singletonMap("REPOSITORY", parameters.get(parameterRepository))));
+		if (request == null) {
+			return null;
+		}
+		try {
+			return METADATA_READER.readValue(request.getResponse());
+		} catch (final IOException e) {
+			log.warn("Invalid metadata of repository {}", parameters.get(parameterRepository), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Return the status of the proxy agents of a node: their circuit breaker status, outstanding calls, completed and
+	 * failed calls, health, and calls completed during the last minute.
+	 * 
+	 * @param node
+	 *            The node identifier.
+	 * @return The status of each proxy agent.
+	 */
+	@GET
+	@Path("agents/{node}")
+	public List<Map<String, Object>> getProxyAgents(@PathParam("node") final String node) {
+		return agentPool.getStatus(getNodeParameters(node).get(parameterUrlProxyAgent));
+	}
+
+	/**
+	 * Return the circuit breaker key of a proxy agent URL.
+	 */
+	private String toAgentKey(final String url) {
+		return StringUtils.defaultString(StringUtils.removeEnd(url, "/"));
+	}
+
+	/**
+	 * Return the status check key of an URL accessed with the given credentials.
+	 */
+	private String toCheckKey(final String url, final Map<String, String> parameters) {
+		return url + "|" + toPoolKey(parameters.get(parameterUser),
+				StringUtils.trimToEmpty(parameters.get(parameterPassword)), null) + "|" + parameters.get(parameterIndex);
+	}
+
+	/**
+	 * Check the status of several nodes concurrently.
+	 * 
+	 * @param nodes
+	 *            The node identifiers.
+	 * @return The status of each node, <code>true</code> when UP.
+	 */
+	@POST
+	@Path("status")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Map<String, Boolean> checkNodesStatus(final List<String> nodes) {
+		final Map<String, Supplier<Boolean>> checks = new LinkedHashMap<>();
+		nodes.forEach(node -> {
+			final Map<String, String> parameters = getNodeParameters(node);
+			checks.put(node, () -> checkStatus(parameters));
+		});
+		return statusChecker.checkAll(checks);
+	}
+
+	/**
+	 * Check the status of several subscriptions concurrently.
+	 * 
+	 * @param subscriptions
+	 *            The subscription identifiers.
+	 * @return The status of each subscription, <code>true</code> when UP.
+	 */
+	@POST
+	@Path("status/subscription")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public Map<Integer, Boolean> checkSubscriptionsStatus(final List<Integer> subscriptions) {
+		final Map<Integer, Supplier<Boolean>> checks = new LinkedHashMap<>();
+		subscriptions.forEach(subscription -> {
+			final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+			checks.put(subscription, () -> checkSubscriptionStatus(parameters).getStatus().isUp());
+		});
+		return statusChecker.checkAll(checks);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #findAllByName(String, String)}: the container thread is released while the
+	 * index is loaded.
+	 * 
+	 * @param node
+	 *            the node to be tested with given parameters.
+	 * @param criteria
+	 *            the search criteria.
+	 * @param timeout
+	 *            the maximal processing time in seconds, bounded by {@value #MAX_ASYNC_TIMEOUT}.
+	 * @param response
+	 *            the suspended response, resumed with the found repositories.
+	 */
+	@GET
+	@Path("async/search/{node}/{criteria}")
+	public void findAllByNameAsync(@PathParam("node") final String node,
+			@PathParam("criteria") final String criteria,
+			@QueryParam("timeout") @DefaultValue("30") final int timeout, @Suspended final AsyncResponse response) {
+		resumeAsync(response, timeout, () -> findAllByName(node, criteria));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #exists(String, String)}: the container thread is released while the proxy
+	 * agent is asked.
+	 * 
+	 * @param node
+	 *            The SCM node to get the url of the proxy agent of.
+	 * @param fullName
+	 *            The full name of the repository to check.
+	 * @param timeout
+	 *            The maximal processing time in seconds, bounded by {@value #MAX_ASYNC_TIMEOUT}.
+	 * @param response
+	 *            The suspended response, resumed with <code>true</code> when the repository exists.
+	 */
+	@GET
+	@Path("async/exists/{node}/{fullName}")
+	public void existsAsync(@PathParam("node") final String node, @PathParam("fullName") final String fullName,
+			@QueryParam("timeout") @DefaultValue("30") final int timeout, @Suspended final AsyncResponse response) {
+		resumeAsync(response, timeout, () -> exists(node, fullName));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #checkNodesStatus(List)}: the container thread is released during the checks.
+	 * 
+	 * @param nodes
+	 *            The node identifiers.
+	 * @param timeout
+	 *            The maximal processing time in seconds, bounded by {@value #MAX_ASYNC_TIMEOUT}.
+	 * @param response
+	 *            The suspended response, resumed with the status of each node.
+	 */
+	@POST
+	@Path("async/status")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public void checkNodesStatusAsync(final List<String> nodes,
+			@QueryParam("timeout") @DefaultValue("30") final int timeout, @Suspended final AsyncResponse response) {
+		resumeAsync(response, timeout, () -> checkNodesStatus(nodes));
+	}
+
+	/**
+	 * Execute a call in the background and resume the response with its result or its failure. The call is
+	 * cancelled when the timeout is reached, or when the response is completed otherwise, such as when the client
+	 * disconnects.
+	 * 
+	 * @param response
+	 *            The suspended response.
+	 * @param timeout
+	 *            The maximal processing time in seconds, bounded by {@value #MAX_ASYNC_TIMEOUT}.
+	 * @param call
+	 *            The blocking call.
+	 * @param <T>
+	 *            The result type.
+	 */
+	protected <T> void resumeAsync(final AsyncResponse response, final int timeout, final Supplier<T> call) {
+		response.setTimeout(Math.max(1, Math.min(timeout, MAX_ASYNC_TIMEOUT)), TimeUnit.SECONDS);
+		response.setTimeoutHandler(r -> r.resume(new BusinessException("scm-async-timeout")));
+		final Future<?> future = asyncExecutor.submit(() -> {
+			try {
+				response.resume(call.get());
+			} catch (final RuntimeException e) {
+				response.resume(e);
+			}
+		});
+		response.register((CompletionCallback) t -> future.cancel(true));
+		response.register((ConnectionCallback) r -> future.cancel(true));
+	}
+
 	/**
 	 * Return the data to complete the subscription status.
 	 * 
@@ -329,13 +1113,171 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		return iamProvider[0].getConfiguration().getGroupRepository();
 	}
 
+	/**
+	 * Validate the parameters and queue the creation of the repository, so the subscription is not blocked by the
+	 * proxy agent call. The result is available with {@link #getSubscriptionCreationJob(int)}.
+	 */
 	@Override
 	public void create(final int subscription) throws Exception {
 		// Create the git repository
-		final Map<String, String> parameters = pvResource.getSubscriptionParameters(subscription);
+		submitCreation(subscription);
+	}
+
+	/**
+	 * Queue the creation of the repository of a subscription managed by the current user. The parameters are
+	 * validated synchronously, only the proxy agent call is executed in the background.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The job identifier to poll with {@link #getCreationJob(String)}.
+	 */
+	@POST
+	@Path("create/{subscription:\\d+}")
+	public String createAsync(@PathParam("subscription") final int subscription) {
+		checkManagedSubscription(subscription);
+		return submitCreation(subscription).getId();
+	}
 
-		verifyParameterValid(parameters, subscription);
+	/**
+	 * Validate the parameters and queue the creation of the repository of a subscription.
+	 */
+	private CreationJob submitCreation(final int subscription) {
+		final Map<String, String> parameters = prepareCreation(subscription);
+		return creationJobs.submit(subscription, getCurrentUser(), toCreationKey(subscription, parameters),
+				() -> handleCreationError(parameters, executeCreation(subscription, parameters)));
+	}
 
+	/**
+	 * Check the current user can manage the subscriptions of the project of a visible subscription.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The subscription entity.
+	 */
+	protected Subscription checkManagedSubscription(final int subscription) {
+		final Subscription entity = subscriptionResource.checkVisibleSubscription(subscription);
+		if (!projectRepository.isManageSubscription(entity.getProject().getId(), getCurrentUser())) {
+			throw new ForbiddenException();
+		}
+		return entity;
+	}
+
+	/**
+	 * Create the repositories of several subscriptions managed by the current user. All parameters are validated
+	 * before the first creation, then the create scripts are executed in parallel, within the rate limit of each
+	 * proxy agent.
+	 * 
+	 * @param subscriptions
+	 *            The subscription identifiers.
+	 * @param concurrency
+	 *            The maximal amount of concurrent creations, bounded by {@value #MAX_CREATION_CONCURRENCY}.
+	 * @return The result of each subscription, in the given order.
+	 * @throws InterruptedException
+	 *             When interrupted while waiting for the creations.
+	 */
+	@POST
+	@Path("create")
+	@Consumes(MediaType.APPLICATION_JSON)
+	public List<CreationResult> createAll(final List<Integer> subscriptions,
+			@QueryParam("concurrency") @DefaultValue("4") final int concurrency) throws InterruptedException {
+		// Validate all entries first
+		final Map<Integer, CreationResult> results = new LinkedHashMap<>();
+		final Map<Integer, Map<String, String>> prepared = new LinkedHashMap<>();
+		for (final int subscription : subscriptions) {
+			try {
+				checkManagedSubscription(subscription);
+				prepared.put(subscription, prepareCreation(subscription));
+				results.put(subscription, null);
+			} catch (final RuntimeException e) {
+				results.put(subscription, new CreationResult(subscription, CreationStatus.INVALID, e.getMessage()));
+			}
+		}
+
+		// Then execute the valid ones
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(concurrency, MAX_CREATION_CONCURRENCY)),
+				ScmExecutors.newThreadFactory("scm-create-bulk"));
+		try {
+			final Map<Integer, Future<CreationResult>> futures = new LinkedHashMap<>();
+			prepared.forEach((subscription, parameters) -> futures.put(subscription, executor.submit(() -> {
+				handleCreationError(parameters, executeCreation(subscription, parameters));
+				return new CreationResult(subscription, CreationStatus.SUCCESS, null);
+			})));
+			for (final Map.Entry<Integer, Future<CreationResult>> future : futures.entrySet()) {
+				results.put(future.getKey(), getCreationResult(future.getKey(), future.getValue()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return new ArrayList<>(results.values());
+	}
+
+	private CreationResult getCreationResult(final int subscription, final Future<CreationResult> future)
+			throws InterruptedException {
+		try {
+			return future.get();
+		} catch (final ExecutionException e) {
+			return new CreationResult(subscription, CreationStatus.of(e.getCause()), e.getCause().getMessage());
+		}
+	}
+
+	/**
+	 * Return the status of a repository creation job submitted by the current user.
+	 * 
+	 * @param id
+	 *            The job identifier.
+	 * @return The job status.
+	 */
+	@GET
+	@Path("job/{id}")
+	public CreationJob getCreationJob(@PathParam("id") final String id) {
+		return Optional.ofNullable(creationJobs.get(id, getCurrentUser()))
+				.orElseThrow(() -> new EntityNotFoundException(id));
+	}
+
+	/**
+	 * Return the status of the last repository creation job of a subscription submitted by the current user.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The job status.
+	 */
+	@GET
+	@Path("create/{subscription:\\d+}")
+	public CreationJob getSubscriptionCreationJob(@PathParam("subscription") final int subscription) {
+		return Optional.ofNullable(creationJobs.getLast(subscription, getCurrentUser()))
+				.orElseThrow(() -> new EntityNotFoundException(String.valueOf(subscription)));
+	}
+
+	/**
+	 * Return the current user name.
+	 * 
+	 * @return The current user name, <code>null</code> when not authenticated.
+	 */
+	protected String getCurrentUser() {
+		return Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication()).map(Authentication::getName)
+				.orElse(null);
+	}
+
+	/**
+	 * Validate the subscription parameters and map them to the variables of the create script.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The create script variables, including the secret key.
+	 */
+	protected Map<String, String> prepareCreation(final int subscription) {
+		final Map<String, String> resolved = getSubscriptionParameters(subscription);
+		try {
+			verifyParameterValid(resolved, subscription);
+		} catch (final RuntimeException e) {
+			// The parameters may have changed
+			invalidateSubscriptionParameters(subscription);
+			throw e;
+		}
+
+		// The resolved parameters are left untouched
+		final Map<String, String> parameters = new HashMap<>(resolved);
 		String tmp;
 
 		// TODO : Create constants
@@ -346,15 +1288,9 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		parameters.put("PROJECT", tmp);
 
 		tmp = parameters.remove(parameterLdapGroups);
-		String newGroupsArray = "";
-		final IGroupRepository repository = getGroup();
-		final String[] groups = tmp.split(",");
-		for (final String group : groups) {
-			newGroupsArray = newGroupsArray.concat(repository.findById(group).getDn() + " ");
-		}
-		newGroupsArray = newGroupsArray.trim();
-
-		parameters.put("LDAP_GROUPS", newGroupsArray);
+		final List<String> groups = Arrays.asList(tmp.split(","));
+		parameters.put("LDAP_GROUPS",
+				metrics.time(toNodeTag(parameters), "ldap", () -> groupDnCache.getDns(getGroup(), groups)));
 
 		tmp = parameters.remove(parameterUrl);
 		parameters.put("URL", StringUtils.appendIfMissing(tmp, "/"));
@@ -367,20 +1303,312 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 
 		tmp = parameters.remove(parameterPassword);
 		parameters.put("PASSWORD", tmp);
+		return parameters;
+	}
 
-		final ScriptContext context = new ScriptContext();
-		context.setScriptId(createScript);
-		context.setParameters(parameters);
-		final CurlRequest request = new CurlRequest(HttpMethod.POST, parameters.get("URL_PROXY_AGENT"),
-				ParameterResource.toJSon(context), HttpHeaders.CONTENT_TYPE + ":" + MediaType.APPLICATION_JSON,
-				HEADER_TOKEN + ":" + parameters.remove(parameterSecretKey));
-		request.setSaveResponse(true);
+	/**
+	 * Return the resolved parameters of a node, from the cache when available.
+	 * 
+	 * @param node
+	 *            The node identifier.
+	 * @return A new map of the node parameters.
+	 */
+	protected Map<String, String> getNodeParameters(final String node) {
+		return parameterCache.get("node:" + node, () -> withNode(node, pvResource.getNodeParameters(node)));
+	}
+
+	/**
+	 * Return the resolved parameters of a subscription, from the cache when available. The visibility of the
+	 * subscription is not checked.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return A new map of the subscription parameters.
+	 */
+	protected Map<String, String> getSubscriptionParameters(final int subscription) {
+		return parameterCache.get("subscription:" + subscription,
+				() -> withNode(getNodeId(subscription), pvResource.getSubscriptionParameters(subscription)));
+	}
 
+	/**
+	 * Return the node identifier of a subscription.
+	 */
+	private String getNodeId(final int subscription) {
+		return Optional.ofNullable(subscriptionRepository.findOne(subscription)).map(Subscription::getNode)
+				.map(Node::getId).orElse(null);
+	}
+
+	/**
+	 * Return a copy of the given parameters holding the node identifier in {@value #PARAMETER_NODE}.
+	 * 
+	 * @param node
+	 *            The node identifier, may be <code>null</code> when unknown.
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @return A new map of the parameters.
+	 */
+	protected Map<String, String> withNode(final String node, final Map<String, String> parameters) {
+		final Map<String, String> result = new HashMap<>(parameters);
+		if (node != null) {
+			result.put(PARAMETER_NODE, node);
+		}
+		return result;
+	}
+
+	/**
+	 * Evict the index of the node of a subscription, so that a created repository is not reported as missing.
+	 */
+	private void invalidateIndex(final int subscription) {
+		Optional.ofNullable(subscriptionRepository.findOne(subscription)).map(Subscription::getNode)
+				.ifPresent(n -> indexCache.invalidate(n.getId()));
+	}
+
+	private void invalidateNodeParameters(final String node) {
+		parameterCache.invalidate("node:" + node);
+	}
+
+	private void invalidateSubscriptionParameters(final int subscription) {
+		parameterCache.invalidate("subscription:" + subscription);
+	}
+
+	/**
+	 * Evict the resolved parameters of all nodes and subscriptions, to be called after a parameter update. A
+	 * parameter change is otherwise seen after the time to live of the cache.
+	 */
+	@DELETE
+	@Path("parameters")
+	public void invalidateParameters() {
+		parameterCache.clear();
+	}
+
+	/**
+	 * Return the idempotency key of a creation.
+	 */
+	private String toCreationKey(final int subscription, final Map<String, String> parameters) {
+		return CreationDeduplicator.toKey(subscription, parameters.get(parameterRepository));
+	}
+
+	/**
+	 * Execute the create script of a subscription through the proxy agent, unless a creation of the same
+	 * subscription and repository is in flight or has recently completed with a definitive result. In this case, its
+	 * exit code is returned.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param parameters
+	 *            The create script variables as returned by {@link #prepareCreation(int)}.
+	 * @return The exit code of the create script, "-1" when the proxy agent did not reply.
+	 */
+	protected int executeCreation(final int subscription, final Map<String, String> parameters) {
+		final int exitCode = creations.execute(toCreationKey(subscription, parameters),
+				() -> Integer.parseInt(executeCreation(parameters).getResponse()),
+				c -> handleCreationError(parameters, c));
+		if (exitCode == -1) {
+			// The parameters may have changed
+			invalidateSubscriptionParameters(subscription);
+		} else if (exitCode == 0) {
+			// The index no more lists all repositories
+			invalidateIndex(subscription);
+		}
+		return exitCode;
+	}
+
+	/**
+	 * Execute the create script through the proxy agent, within the creation rate of the selected proxy agent.
+	 * 
+	 * @param parameters
+	 *            The create script variables as returned by {@link #prepareCreation(int)}.
+	 * @return The processed request. Its response is the exit code of the script, "-1" when the proxy agent did not
+	 *         reply.
+	 */
+	protected CurlRequest executeCreation(final Map<String, String> parameters) {
 		// check if creation success
-		if (!newCurlProcessor(parameters).process(request)) {
+		return processScript(OPERATION_CREATE, parameters, parameters.get("URL_PROXY_AGENT"), agent -> {
+			acquireCreation(parameters, agent);
+			final Map<String, String> variables = new HashMap<>(parameters);
+			variables.remove(PARAMETER_NODE);
+			variables.put("URL_PROXY_AGENT", agent + "/");
+			return newScriptRequest(agent + "/", variables.remove(parameterSecretKey), createScript, variables);
+		});
+	}
+
+	/**
+	 * Wait for a creation permit of a proxy agent, at the rate of the node.
+	 */
+	private void acquireCreation(final Map<String, String> parameters, final String agent) {
+		final double rate = NumberUtils.toDouble(parameters.get(parameterCreationRate), DEFAULT_CREATION_RATE);
+		try {
+			creationRateLimiter.acquire(toAgentKey(agent), rate > 0 ? rate : DEFAULT_CREATION_RATE);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("scm-creation-interrupted", e);
+		}
+	}
+
+	/**
+	 * Process a request with the pooled processor of the credentials, within the concurrency limit of the node, and
+	 * record its duration.
+	 * 
+	 * @param operation
+	 *            The operation tag.
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @param callback
+	 *            The stateless response callback, may be <code>null</code> for the default one.
+	 * @param request
+	 *            The request to process.
+	 * @return <code>true</code> when the request succeeded.
+	 */
+	protected boolean process(final String operation, final Map<String, String> parameters,
+			final HttpResponseCallback callback, final CurlRequest request) {
+		final String key = toPoolKey(parameters.get(parameterUser),
+				StringUtils.trimToEmpty(parameters.get(parameterPassword)), callback);
+		final Timer.Sample sample = metrics.start();
+		boolean result = false;
+		try {
+			result = nodeLimiter.execute(toLimiterKey(parameters),
+					() -> processorPool.process(key, () -> newCurlProcessor(parameters, callback), request));
+			return result;
+		} finally {
+			metrics.stop(sample, toNodeTag(parameters), operation, result ? ScmMetrics.SUCCESS : ScmMetrics.FAILURE);
+		}
+	}
+
+	/**
+	 * Process a request of the proxy agent through its circuit breaker, and record its duration. The request fails
+	 * fast when the circuit is open. Except for the creation, which is not idempotent, the caller gives up when the
+	 * request exceeds the adaptive timeout of the operation. The agent load is updated when the request actually
+	 * completes.
+	 * 
+	 * @param operation
+	 *            The operation tag.
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @param request
+	 *            The proxy agent request to process.
+	 * @return The request outcome. A timed out request may have been executed by the agent.
+	 */
+	protected CircuitBreaker.Outcome processAgent(final String operation, final Map<String, String> parameters,
+			final CurlRequest request) {
+		final String agent = toAgentKey(request.getUrl());
+		agentPool.start(agent);
+		return agentBreaker.execute(agent, operation, () -> process(operation, parameters, null, request),
+				!OPERATION_CREATE.equals(operation), completed -> {
+					// A timed out call stays outstanding until it actually completes
+					if (completed == CircuitBreaker.Outcome.REJECTED) {
+						agentPool.release(agent);
+					} else {
+						agentPool.end(agent, completed == CircuitBreaker.Outcome.SUCCESS);
+					}
+				});
+	}
+
+	/**
+	 * Process a request through the available proxy agents, least loaded first. The request is sent to the next agent
+	 * only when it has provably not been sent to the previous one: rejected by its circuit breaker, or unable to
+	 * connect. The creation is never sent to another agent.
+	 * 
+	 * @param operation
+	 *            The operation tag.
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @param agents
+	 *            The comma separated proxy agent URLs.
+	 * @param newRequest
+	 *            The request factory, receiving the proxy agent URL.
+	 * @return The processed request, or <code>null</code> when no proxy agent replied.
+	 */
+	protected CurlRequest processAgents(final String operation, final Map<String, String> parameters,
+			final String agents, final Function<String, CurlRequest> newRequest) {
+		for (final String agent : agentPool.route(agents)) {
+			final CurlRequest request = newRequest.apply(agent);
+			final CircuitBreaker.Outcome outcome = processAgent(operation, parameters, request);
+			if (outcome == CircuitBreaker.Outcome.SUCCESS) {
+				return request;
+			}
+			if (OPERATION_CREATE.equals(operation) || !isNotSent(outcome, request)) {
+				// The agent may have executed the request
+				break;
+			}
+			// Fail over to the next proxy agent
+		}
+		return null;
+	}
+
+	/**
+	 * Indicate the request has not been sent to the proxy agent.
+	 */
+	private boolean isNotSent(final CircuitBreaker.Outcome outcome, final CurlRequest request) {
+		return outcome == CircuitBreaker.Outcome.REJECTED || outcome == CircuitBreaker.Outcome.FAILURE
+				&& request instanceof AgentRequest && ((AgentRequest) request).isUnreachable();
+	}
+
+	/**
+	 * Process a script request through the available proxy agents, and record its exit code.
+	 * 
+	 * @param operation
+	 *            The operation tag.
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @param agents
+	 *            The comma separated proxy agent URLs.
+	 * @param newRequest
+	 *            The script request factory, receiving the proxy agent URL.
+	 * @return The processed request. Its response is the exit code of the script, "-1" when no proxy agent replied.
+	 *         In this case, the request is the last one sent, or an unsent one when no proxy agent is available.
+	 */
+	protected CurlRequest processScript(final String operation, final Map<String, String> parameters,
+			final String agents, final Function<String, CurlRequest> newRequest) {
+		final AtomicReference<CurlRequest> last = new AtomicReference<>();
+		CurlRequest request = processAgents(operation, parameters, agents, agent -> {
+			last.set(newRequest.apply(agent));
+			return last.get();
+		});
+		if (request == null) {
+			// Report the failure without building a new request, the factory may have side effects
+			request = Optional.ofNullable(last.get()).orElseGet(
+					() -> new AgentRequest(ProxyAgentPool.split(agents).stream().findFirst().orElse(null), null));
 			request.setResponse("-1");
 		}
-		handleCreationError(parameters, request);
+		metrics.exitCode(toNodeTag(parameters), operation, request.getResponse());
+		return request;
+	}
+
+	/**
+	 * Return the node tag of the metrics: the node identifier, before or after the mapping of the create script
+	 * variables. The URL is not used, since it may hold credentials and is not bounded.
+	 * 
+	 * @param parameters
+	 *            The node or subscription parameters.
+	 * @return The node tag, "unknown" when the parameters have not been resolved from a node.
+	 */
+	protected String toNodeTag(final Map<String, String> parameters) {
+		return StringUtils.defaultIfBlank(parameters.get(PARAMETER_NODE), "unknown");
+	}
+
+	/**
+	 * Return the key of the concurrency limit of a node: its identifier when known, its SCM base URL otherwise.
+	 */
+	private String toLimiterKey(final Map<String, String> parameters) {
+		final String url = StringUtils.removeEnd(parameters.getOrDefault(parameterUrl, parameters.get("URL")), "/");
+		return StringUtils.defaultIfBlank(parameters.get(PARAMETER_NODE), StringUtils.defaultIfBlank(url, "unknown"));
+	}
+
+	/**
+	 * Use the given meter registry instead of the global one.
+	 * 
+	 * @param registry
+	 *            The meter registry.
+	 */
+	@Autowired(required = false)
+	public void setMeterRegistry(final MeterRegistry registry) {
+		this.metrics = newMetrics(registry);
+	}
+
+	private ScmMetrics newMetrics(final MeterRegistry registry) {
+		final ScmMetrics result = new ScmMetrics(registry, key);
+		result.monitor("group-dn", groupDnCache, GroupDnCache::getHits, GroupDnCache::getMisses);
+		return result;
 	}
 
 	/**
@@ -437,7 +1665,18 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 	 *            The request object
 	 */
 	protected void handleCreationError(final Map<String, String> parameters, final CurlRequest request) {
-		final int exitCode = Integer.valueOf(request.getResponse());
+		handleCreationError(parameters, Integer.parseInt(request.getResponse()));
+	}
+
+	/**
+	 * Handles an exit code of the create script
+	 * 
+	 * @param parameters
+	 *            The parameters of the subscription
+	 * @param exitCode
+	 *            The exit code of the script
+	 */
+	protected void handleCreationError(final Map<String, String> parameters, final int exitCode) {
 		switch (exitCode) {
 		case -1:
 			throw new BusinessException("The proxy agent doesn't reply");
@@ -453,8 +1692,29 @@ public abstract class AbstractIndexBasedPluginResource extends AbstractToolPlugi
 		}
 	}
 
+	/**
+	 * Handles the return code sent by the proxy agent for an existence check
+	 * 
+	 * @param parameters
+	 *            The parameters of the node
+	 * @param request
+	 *            The request object
+	 * @return True if exists
+	 */
 	protected boolean handleExistenceError(final Map<String, String> parameters, final CurlRequest request) {
-		final int exitCode = Integer.valueOf(request.getResponse());
+		return handleExistenceError(parameters, Integer.parseInt(request.getResponse()));
+	}
+
+	/**
+	 * Handles an exit code of the exists script
+	 * 
+	 * @param parameters
+	 *            The parameters of the node
+	 * @param exitCode
+	 *            The exit code of the script
+	 * @return True if exists
+	 */
+	protected boolean handleExistenceError(final Map<String, String> parameters, final int exitCode) {
 		switch (exitCode) {
 		case -1:
 			throw new ValidationJsonException("The proxy agent doesn't reply");
@@ -0,0 +1,36 @@
+package org.ligoj.app.plugin.scm;
+
+import javax.ws.rs.HttpMethod;
+
+import org.ligoj.app.resource.plugin.CurlRequest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A script request of a proxy agent. The processor flags the request when the agent could not be reached, so the
+ * request can be sent to another agent without being executed twice.
+ */
+@Getter
+@Setter
+public class AgentRequest extends CurlRequest {
+
+	/**
+	 * When <code>true</code>, the request has not been sent: the connection to the agent could not be established.
+	 */
+	private boolean unreachable;
+
+	/**
+	 * Build a POST request.
+	 *
+	 * @param url
+	 *            The proxy agent URL.
+	 * @param content
+	 *            The request body.
+	 * @param headers
+	 *            The request headers, such as "Content-Type:application/json".
+	 */
+	public AgentRequest(final String url, final String content, final String... headers) {
+		super(HttpMethod.POST, url, content, headers);
+	}
+}
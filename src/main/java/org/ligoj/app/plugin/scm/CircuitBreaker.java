@@ -0,0 +1,542 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keyed circuit breaker of a remote dependency. Timed calls are executed with a timeout adapted to the recent
+ * latencies of the same key and operation, the other ones are executed by the caller without timeout. After
+ * consecutive failures or timeouts, the circuit opens and the calls are rejected without being executed. Once the
+ * open delay is elapsed, a single probe call is allowed: its success closes the circuit, its failure opens it again.
+ * A call rejected because of the local saturation does not change the circuit.<br>
+ * Each key owns a bulkhead bounding its running timed calls, so a slow dependency cannot hold the threads of the
+ * other ones. A timed out call keeps its place in the bulkhead until it actually completes.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+	/**
+	 * Circuit state.
+	 */
+	public enum State {
+		/**
+		 * Calls are executed.
+		 */
+		CLOSED,
+
+		/**
+		 * Calls are rejected.
+		 */
+		OPEN,
+
+		/**
+		 * A single probe call is executed, the other ones are rejected.
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * Result of a call.
+	 */
+	public enum Outcome {
+		/**
+		 * The call has been executed and is successful.
+		 */
+		SUCCESS,
+
+		/**
+		 * The call has been executed and failed.
+		 */
+		FAILURE,
+
+		/**
+		 * The call did not complete within the timeout: it may have succeeded, failed, or may still be running.
+		 */
+		TIMEOUT,
+
+		/**
+		 * The call has not been executed, because the circuit is open or too many calls are running.
+		 */
+		REJECTED
+	}
+
+	/**
+	 * Default amount of consecutive failures opening the circuit.
+	 */
+	public static final int DEFAULT_THRESHOLD = 5;
+
+	/**
+	 * Default delay before a probe call of an open circuit, in milliseconds.
+	 */
+	public static final long DEFAULT_OPEN_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * Default minimal timeout of a call, in milliseconds.
+	 */
+	public static final long DEFAULT_MIN_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+
+	/**
+	 * Default maximal timeout of a call, in milliseconds. Also used until enough latencies are known.
+	 */
+	public static final long DEFAULT_MAX_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+
+	/**
+	 * Multiplier of the latency percentile giving the timeout.
+	 */
+	private static final int TIMEOUT_FACTOR = 4;
+
+	/**
+	 * Percentile of the latencies giving the timeout.
+	 */
+	private static final double PERCENTILE = 0.99;
+
+	/**
+	 * Amount of retained latencies per key and operation.
+	 */
+	private static final int WINDOW = 100;
+
+	/**
+	 * Minimal amount of latencies before adapting the timeout.
+	 */
+	private static final int MIN_SAMPLES = 10;
+
+	/**
+	 * Maximum amount of concurrent timed calls per key, including the timed out ones still running.
+	 */
+	public static final int MAX_CALLS = 16;
+
+	private final int threshold;
+
+	private final long openDelay;
+
+	private final long minTimeout;
+
+	private final long maxTimeout;
+
+	/**
+	 * The current time provider, in milliseconds.
+	 */
+	private final LongSupplier clock;
+
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * Executes the timed calls, so that the caller can give up after the timeout. Its threads are bounded by the
+	 * bulkhead of each key.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * State of a key.
+	 */
+	private class Circuit {
+		private State state = State.CLOSED;
+		private int failures;
+		private long openedAt;
+		private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+
+		/**
+		 * The bulkhead of the timed calls.
+		 */
+		private final Semaphore calls = new Semaphore(MAX_CALLS);
+
+		/**
+		 * Return <code>true</code> when a call is allowed, and start the probe of an expired open circuit.
+		 */
+		private synchronized boolean acquire() {
+			if (state == State.OPEN && clock.getAsLong() - openedAt >= openDelay) {
+				state = State.HALF_OPEN;
+				return true;
+			}
+			return state == State.CLOSED;
+		}
+
+		/**
+		 * Release a call that has not been executed, so that an expired open circuit can be probed again.
+		 */
+		private synchronized void release() {
+			if (state == State.HALF_OPEN) {
+				state = State.OPEN;
+			}
+		}
+
+		private synchronized void success() {
+			state = State.CLOSED;
+			failures = 0;
+		}
+
+		private synchronized void failure() {
+			failures++;
+			if (state == State.HALF_OPEN || failures >= threshold) {
+				state = State.OPEN;
+				openedAt = clock.getAsLong();
+			}
+		}
+
+		private synchronized State getState() {
+			return state;
+		}
+
+		private synchronized boolean isRejecting() {
+			return state == State.HALF_OPEN || state == State.OPEN && clock.getAsLong() - openedAt < openDelay;
+		}
+
+		private synchronized int getFailures() {
+			return failures;
+		}
+	}
+
+	/**
+	 * Latest latencies of an operation.
+	 */
+	private static class Latencies {
+		private final long[] values = new long[WINDOW];
+		private int count;
+
+		private synchronized void add(final long latency) {
+			values[count++ % WINDOW] = latency;
+		}
+
+		/**
+		 * Return the percentile of the latencies, or <code>-1</code> when there are not enough values.
+		 */
+		private synchronized long percentile() {
+			if (count < MIN_SAMPLES) {
+				return -1;
+			}
+			final long[] sorted = Arrays.copyOf(values, Math.min(count, WINDOW));
+			Arrays.sort(sorted);
+			return sorted[(int) Math.ceil(PERCENTILE * sorted.length) - 1];
+		}
+	}
+
+	/**
+	 * Default constructor using the default threshold, delay and timeouts.
+	 */
+	public CircuitBreaker() {
+		this(DEFAULT_THRESHOLD, DEFAULT_OPEN_DELAY, DEFAULT_MIN_TIMEOUT, DEFAULT_MAX_TIMEOUT);
+	}
+
+	/**
+	 * Constructor using the system clock.
+	 *
+	 * @param threshold
+	 *            Amount of consecutive failures opening the circuit.
+	 * @param openDelay
+	 *            Delay before a probe call of an open circuit, in milliseconds.
+	 * @param minTimeout
+	 *            Minimal timeout of a call, in milliseconds.
+	 * @param maxTimeout
+	 *            Maximal timeout of a call, in milliseconds.
+	 */
+	public CircuitBreaker(final int threshold, final long openDelay, final long minTimeout, final long maxTimeout) {
+		this(threshold, openDelay, minTimeout, maxTimeout, System::currentTimeMillis);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param threshold
+	 *            Amount of consecutive failures opening the circuit.
+	 * @param openDelay
+	 *            Delay before a probe call of an open circuit, in milliseconds.
+	 * @param minTimeout
+	 *            Minimal timeout of a call, in milliseconds.
+	 * @param maxTimeout
+	 *            Maximal timeout of a call, in milliseconds.
+	 * @param clock
+	 *            The current time provider, in milliseconds.
+	 */
+	public CircuitBreaker(final int threshold, final long openDelay, final long minTimeout, final long maxTimeout,
+			final LongSupplier clock) {
+		this.clock = clock;
+		this.threshold = threshold;
+		this.openDelay = openDelay;
+		this.minTimeout = minTimeout;
+		this.maxTimeout = maxTimeout;
+		this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES, new SynchronousQueue<>(),
+				ScmExecutors.newThreadFactory("scm-agent-call"));
+	}
+
+	private Circuit getCircuit(final String key) {
+		return circuits.computeIfAbsent(key, k -> new Circuit());
+	}
+
+	/**
+	 * Execute a timed call through the circuit of the given key.
+	 *
+	 * @param key
+	 *            The circuit key, such as the remote dependency URL.
+	 * @param operation
+	 *            The operation, owning its own latencies.
+	 * @param call
+	 *            The call returning <code>true</code> when successful.
+	 * @return The call outcome.
+	 */
+	public Outcome execute(final String key, final String operation, final BooleanSupplier call) {
+		return execute(key, operation, call, true);
+	}
+
+	/**
+	 * Execute a call through the circuit of the given key.
+	 *
+	 * @param key
+	 *            The circuit key, such as the remote dependency URL.
+	 * @param operation
+	 *            The operation, owning its own latencies.
+	 * @param call
+	 *            The call returning <code>true</code> when successful.
+	 * @param timed
+	 *            When <code>true</code>, the caller gives up after the adaptive timeout of the operation. Must be
+	 *            <code>false</code> for the calls that are not idempotent, since a timed out call may still complete.
+	 * @return The call outcome.
+	 */
+	public Outcome execute(final String key, final String operation, final BooleanSupplier call,
+			final boolean timed) {
+		return execute(key, operation, call, timed, o -> {
+			// Nothing to release
+		});
+	}
+
+	/**
+	 * Execute a call through the circuit of the given key, and notify its actual completion.
+	 *
+	 * @param key
+	 *            The circuit key, such as the remote dependency URL.
+	 * @param operation
+	 *            The operation, owning its own latencies.
+	 * @param call
+	 *            The call returning <code>true</code> when successful.
+	 * @param timed
+	 *            When <code>true</code>, the caller gives up after the adaptive timeout of the operation. Must be
+	 *            <code>false</code> for the calls that are not idempotent, since a timed out call may still complete.
+	 * @param completion
+	 *            Receives {@link Outcome#REJECTED} when the call is not executed, otherwise {@link Outcome#SUCCESS}
+	 *            or {@link Outcome#FAILURE} once the call has completed. A timed out call is notified when it
+	 *            actually completes or is dropped before its start, after this method returns.
+	 * @return The call outcome.
+	 */
+	public Outcome execute(final String key, final String operation, final BooleanSupplier call, final boolean timed,
+			final Consumer<Outcome> completion) {
+		final Circuit circuit = getCircuit(key);
+		if (!circuit.acquire()) {
+			log.info("Call {} to {} rejected, the circuit is open", operation, key);
+			completion.accept(Outcome.REJECTED);
+			return Outcome.REJECTED;
+		}
+		final Latencies latencies = circuit.latencies.computeIfAbsent(operation, o -> new Latencies());
+		final long start = clock.getAsLong();
+		final Outcome outcome = timed ? execute(key, operation, call, circuit, getTimeout(latencies), completion)
+				: executeInline(key, operation, call, completion);
+		if (outcome == Outcome.SUCCESS) {
+			latencies.add(clock.getAsLong() - start);
+			circuit.success();
+		} else if (outcome == Outcome.REJECTED) {
+			circuit.release();
+		} else {
+			circuit.failure();
+		}
+		return outcome;
+	}
+
+	/**
+	 * Execute a call in the caller thread.
+	 */
+	private Outcome executeInline(final String key, final String operation, final BooleanSupplier call,
+			final Consumer<Outcome> completion) {
+		Outcome outcome = Outcome.FAILURE;
+		try {
+			outcome = call.getAsBoolean() ? Outcome.SUCCESS : Outcome.FAILURE;
+		} catch (final RuntimeException e) {
+			log.warn("Call {} to {} failed", operation, key, e);
+		} finally {
+			completion.accept(outcome);
+		}
+		return outcome;
+	}
+
+	/**
+	 * Execute a call in the bulkhead of its circuit. On timeout, the call is interrupted but keeps its place in the
+	 * bulkhead until it completes.
+	 */
+	private Outcome execute(final String key, final String operation, final BooleanSupplier call,
+			final Circuit circuit, final long timeout, final Consumer<Outcome> completion) {
+		if (!circuit.calls.tryAcquire()) {
+			log.warn("Call {} to {} rejected, too many concurrent calls", operation, key);
+			completion.accept(Outcome.REJECTED);
+			return Outcome.REJECTED;
+		}
+		final TimedCall timedCall = new TimedCall(call, circuit, completion);
+		try {
+			executor.execute(timedCall);
+		} catch (final RejectedExecutionException e) {
+			circuit.calls.release();
+			log.warn("Call {} to {} rejected, the executor is stopped", operation, key);
+			completion.accept(Outcome.REJECTED);
+			return Outcome.REJECTED;
+		}
+		try {
+			return timedCall.result.get(timeout, TimeUnit.MILLISECONDS) ? Outcome.SUCCESS : Outcome.FAILURE;
+		} catch (final TimeoutException e) {
+			log.warn("Call {} to {} timed out after {}ms, its result is unknown", operation, key, timeout);
+			timedCall.interrupt();
+			return Outcome.TIMEOUT;
+		} catch (final ExecutionException e) {
+			log.warn("Call {} to {} failed", operation, key, e.getCause());
+			return Outcome.FAILURE;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			timedCall.interrupt();
+			return Outcome.TIMEOUT;
+		}
+	}
+
+	/**
+	 * A timed call releasing its place in the bulkhead and notifying its completion once it has actually completed.
+	 */
+	private static class TimedCall implements Runnable {
+		private final BooleanSupplier call;
+		private final Circuit circuit;
+		private final Consumer<Outcome> completion;
+		private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+		/**
+		 * The thread running the call, <code>null</code> when not running.
+		 */
+		private Thread worker;
+
+		private boolean interrupted;
+
+		private TimedCall(final BooleanSupplier call, final Circuit circuit, final Consumer<Outcome> completion) {
+			this.call = call;
+			this.circuit = circuit;
+			this.completion = completion;
+		}
+
+		@Override
+		public void run() {
+			if (!start()) {
+				// The caller gave up before the call was sent
+				finish(Outcome.REJECTED);
+				return;
+			}
+			boolean success = false;
+			try {
+				success = call.getAsBoolean();
+				result.complete(success);
+			} catch (final RuntimeException e) {
+				result.completeExceptionally(e);
+			} finally {
+				stop();
+				finish(success ? Outcome.SUCCESS : Outcome.FAILURE);
+			}
+		}
+
+		/**
+		 * Record the running thread, unless the caller already gave up.
+		 */
+		private synchronized boolean start() {
+			worker = Thread.currentThread();
+			return !interrupted;
+		}
+
+		/**
+		 * Forget the running thread and clear a pending interruption, so that it does not leak to the next call.
+		 */
+		private synchronized void stop() {
+			worker = null;
+			Thread.interrupted();
+		}
+
+		/**
+		 * Interrupt the running call, or prevent its start.
+		 */
+		private synchronized void interrupt() {
+			interrupted = true;
+			if (worker != null) {
+				worker.interrupt();
+			}
+		}
+
+		private void finish(final Outcome outcome) {
+			circuit.calls.release();
+			completion.accept(outcome);
+		}
+	}
+
+	private long getTimeout(final Latencies latencies) {
+		final long percentile = latencies.percentile();
+		return percentile < 0 ? maxTimeout : Math.min(maxTimeout, Math.max(minTimeout, percentile * TIMEOUT_FACTOR));
+	}
+
+	/**
+	 * Return the state of the circuit of the given key.
+	 *
+	 * @param key
+	 *            The circuit key.
+	 * @return The circuit state. {@link State#CLOSED} when unknown.
+	 */
+	public State getState(final String key) {
+		final Circuit circuit = circuits.get(key);
+		return circuit == null ? State.CLOSED : circuit.getState();
+	}
+
+	/**
+	 * Indicates the calls of the given key are currently rejected: the circuit is open and its delay is not elapsed,
+	 * or a probe call is running.
+	 *
+	 * @param key
+	 *            The circuit key.
+	 * @return <code>true</code> when the calls are rejected.
+	 */
+	public boolean isOpen(final String key) {
+		final Circuit circuit = circuits.get(key);
+		return circuit != null && circuit.isRejecting();
+	}
+
+	/**
+	 * Return the status of the circuit of the given key: its state, its consecutive failures and the current timeout
+	 * of each known operation.
+	 *
+	 * @param key
+	 *            The circuit key.
+	 * @return The circuit status.
+	 */
+	public Map<String, Object> getStatus(final String key) {
+		final Circuit circuit = circuits.get(key);
+		final Map<String, Long> timeouts = new LinkedHashMap<>();
+		final Map<String, Object> status = new LinkedHashMap<>();
+		if (circuit == null) {
+			status.put("state", State.CLOSED);
+			status.put("failures", 0);
+		} else {
+			circuit.latencies.forEach((operation, latencies) -> timeouts.put(operation, getTimeout(latencies)));
+			status.put("state", circuit.getState());
+			status.put("failures", circuit.getFailures());
+		}
+		status.put("timeouts", timeouts);
+		return status;
+	}
+
+	/**
+	 * Stop the running calls.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,62 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keyed limiter of the concurrent calls. Callers exceeding the limit of a key wait for a permit.
+ */
+public class ConcurrencyLimiter {
+
+	private final int permits;
+
+	private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param permits
+	 *            The maximal amount of concurrent calls of each key.
+	 */
+	public ConcurrencyLimiter(final int permits) {
+		this.permits = permits;
+	}
+
+	/**
+	 * Execute a call within the limit of the given key.
+	 *
+	 * @param key
+	 *            The limited resource key.
+	 * @param call
+	 *            The call returning <code>true</code> when successful.
+	 * @return The call result, or <code>false</code> when interrupted while waiting for a permit.
+	 */
+	public boolean execute(final String key, final BooleanSupplier call) {
+		final Semaphore semaphore = semaphores.computeIfAbsent(key, k -> new Semaphore(permits, true));
+		try {
+			semaphore.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		try {
+			return call.getAsBoolean();
+		} finally {
+			semaphore.release();
+		}
+	}
+
+	/**
+	 * Return the amount of calls of the given key currently executed.
+	 *
+	 * @param key
+	 *            The limited resource key.
+	 * @return The amount of running calls.
+	 */
+	public int getRunning(final String key) {
+		final Semaphore semaphore = semaphores.get(key);
+		return semaphore == null ? 0 : permits - semaphore.availablePermits();
+	}
+}
@@ -0,0 +1,96 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Deduplicates the repository creations by idempotency key. A duplicate of an in flight creation waits for it and
+ * shares its exit code. A duplicate of a recently completed creation gets its exit code when it is definitive, without
+ * executing the create script again.
+ */
+public class CreationDeduplicator {
+
+	/**
+	 * Default retention of a completed creation, in milliseconds.
+	 */
+	public static final long DEFAULT_RETENTION = TimeUnit.MINUTES.toMillis(10);
+
+	/**
+	 * Default maximum amount of retained creations.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	/**
+	 * In flight creations.
+	 */
+	private final SingleFlight<String, Integer> inFlight = new SingleFlight<>();
+
+	/**
+	 * Definitive exit codes of the recent creations.
+	 */
+	private final TtlCache<String, Integer> completed;
+
+	/**
+	 * Default constructor using the default retention and size.
+	 */
+	public CreationDeduplicator() {
+		this(DEFAULT_RETENTION, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param retention
+	 *            Retention of a completed creation, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of retained creations.
+	 */
+	public CreationDeduplicator(final long retention, final int maxSize) {
+		this.completed = new TtlCache<>(retention, maxSize);
+	}
+
+	/**
+	 * Return the idempotency key of the creation of a repository.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param repository
+	 *            The repository name.
+	 * @return The idempotency key.
+	 */
+	public static String toKey(final int subscription, final String repository) {
+		return subscription + ":" + repository;
+	}
+
+	/**
+	 * Execute a creation, or return the exit code of the in flight or recent creation of the same key.
+	 *
+	 * @param key
+	 *            The idempotency key.
+	 * @param creation
+	 *            The creation returning the exit code of the create script.
+	 * @param handler
+	 *            The exit code handler, raising an error for a failed creation. Only the exit codes accepted or
+	 *            rejected by a validation error are retained.
+	 * @return The exit code of the create script.
+	 */
+	public int execute(final String key, final IntSupplier creation, final IntConsumer handler) {
+		final Integer recent = completed.get(key);
+		if (recent != null) {
+			return recent;
+		}
+		return inFlight.execute(key, () -> {
+			// A creation may have completed since the previous lookup
+			final Integer exitCode = completed.get(key);
+			if (exitCode != null) {
+				return exitCode;
+			}
+			final int result = creation.getAsInt();
+			if (CreationStatus.of(handler, result).isDefinitive()) {
+				completed.put(key, result);
+			}
+			return result;
+		});
+	}
+}
@@ -0,0 +1,83 @@
+package org.ligoj.app.plugin.scm;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A tracked repository creation.
+ */
+@Getter
+@Slf4j
+public class CreationJob {
+
+	/**
+	 * The job identifier.
+	 */
+	private final String id;
+
+	/**
+	 * The subscription identifier.
+	 */
+	private final int subscription;
+
+	/**
+	 * The user having submitted this job, may be <code>null</code>.
+	 */
+	private final String user;
+
+	/**
+	 * The current status.
+	 */
+	private volatile CreationStatus status = CreationStatus.QUEUED;
+
+	/**
+	 * The failure message, <code>null</code> while not completed or when succeeded.
+	 */
+	private volatile String message;
+
+	/**
+	 * The submission time stamp.
+	 */
+	private final long submitted = System.currentTimeMillis();
+
+	/**
+	 * The completion time stamp, <code>0</code> while not completed.
+	 */
+	private volatile long completed;
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param id
+	 *            The job identifier.
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param user
+	 *            The user having submitted this job, may be <code>null</code>.
+	 */
+	public CreationJob(final String id, final int subscription, final String user) {
+		this.id = id;
+		this.subscription = subscription;
+		this.user = user;
+	}
+
+	/**
+	 * Execute the creation and record its result.
+	 *
+	 * @param creation
+	 *            The creation raising an error when the repository is not created.
+	 */
+	public void run(final Runnable creation) {
+		status = CreationStatus.RUNNING;
+		try {
+			creation.run();
+			status = CreationStatus.SUCCESS;
+		} catch (final RuntimeException e) {
+			log.error("Repository creation of subscription {} failed", subscription, e);
+			message = e.getMessage();
+			status = CreationStatus.of(e);
+		} finally {
+			completed = System.currentTimeMillis();
+		}
+	}
+}
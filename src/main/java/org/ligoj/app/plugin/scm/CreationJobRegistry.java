@@ -0,0 +1,156 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+/**
+ * Bounded executor of repository creations, and the recent jobs.
+ */
+public class CreationJobRegistry {
+
+	/**
+	 * Default amount of concurrent creations.
+	 */
+	public static final int DEFAULT_WORKERS = 4;
+
+	/**
+	 * Default amount of queued creations.
+	 */
+	public static final int DEFAULT_QUEUE = 500;
+
+	/**
+	 * Default retention of a job, in milliseconds.
+	 */
+	public static final long DEFAULT_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+	private final ThreadPoolExecutor executor;
+
+	private final TtlCache<String, CreationJob> jobs;
+
+	/**
+	 * Recent jobs by idempotency key.
+	 */
+	private final TtlCache<String, CreationJob> keys;
+
+	/**
+	 * Last job by subscription.
+	 */
+	private final TtlCache<Integer, CreationJob> subscriptions;
+
+	/**
+	 * Default constructor using the default sizes.
+	 */
+	public CreationJobRegistry() {
+		this(DEFAULT_WORKERS, DEFAULT_QUEUE);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param workers
+	 *            Amount of concurrent creations.
+	 * @param queue
+	 *            Amount of queued creations.
+	 */
+	public CreationJobRegistry(final int workers, final int queue) {
+		this.executor = new ThreadPoolExecutor(workers, workers, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(queue),
+				ScmExecutors.newThreadFactory("scm-create"));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.jobs = new TtlCache<>(DEFAULT_RETENTION, workers + queue * 4);
+		this.keys = new TtlCache<>(DEFAULT_RETENTION, workers + queue * 4);
+		this.subscriptions = new TtlCache<>(DEFAULT_RETENTION, workers + queue * 4);
+	}
+
+	/**
+	 * Queue a creation.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param user
+	 *            The user submitting the creation, may be <code>null</code>.
+	 * @param creation
+	 *            The creation raising an error when the repository is not created.
+	 * @return The queued job.
+	 */
+	public CreationJob submit(final int subscription, final String user, final Runnable creation) {
+		final CreationJob job = new CreationJob(UUID.randomUUID().toString(), subscription, user);
+		jobs.put(job.getId(), job);
+		try {
+			executor.execute(() -> job.run(creation));
+		} catch (final RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			throw new BusinessException("scm-creation-queue-full", e);
+		}
+		subscriptions.put(subscription, job);
+		return job;
+	}
+
+	/**
+	 * Queue a creation, or return the recent job of the same user and idempotency key when it is still running or
+	 * its result is definitive.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param user
+	 *            The user submitting the creation, may be <code>null</code>.
+	 * @param key
+	 *            The idempotency key.
+	 * @param creation
+	 *            The creation raising an error when the repository is not created.
+	 * @return The queued or existing job.
+	 */
+	public CreationJob submit(final int subscription, final String user, final String key,
+			final Runnable creation) {
+		final String userKey = user + "|" + key;
+		synchronized (keys) {
+			final CreationJob existing = keys.get(userKey);
+			if (existing != null && (!existing.getStatus().isTerminal() || existing.getStatus().isDefinitive())) {
+				return existing;
+			}
+			final CreationJob job = submit(subscription, user, creation);
+			keys.put(userKey, job);
+			return job;
+		}
+	}
+
+	/**
+	 * Return a recent job of the given user.
+	 *
+	 * @param id
+	 *            The job identifier.
+	 * @param user
+	 *            The user having submitted the job, may be <code>null</code>.
+	 * @return The job or <code>null</code> when unknown, expired or submitted by another user.
+	 */
+	public CreationJob get(final String id, final String user) {
+		final CreationJob job = jobs.get(id);
+		return job == null || !Objects.equals(job.getUser(), user) ? null : job;
+	}
+
+	/**
+	 * Return the last recent job of a subscription submitted by the given user.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param user
+	 *            The user having submitted the job, may be <code>null</code>.
+	 * @return The job or <code>null</code> when unknown, expired or submitted by another user.
+	 */
+	public CreationJob getLast(final int subscription, final String user) {
+		final CreationJob job = subscriptions.get(subscription);
+		return job == null || !Objects.equals(job.getUser(), user) ? null : job;
+	}
+
+	/**
+	 * Stop accepting creations. The queued and running creations are still completed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,27 @@
+package org.ligoj.app.plugin.scm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The result of a repository creation within a bulk provisioning.
+ */
+@Getter
+@AllArgsConstructor
+public class CreationResult {
+
+	/**
+	 * The subscription identifier.
+	 */
+	private final int subscription;
+
+	/**
+	 * The terminal status.
+	 */
+	private final CreationStatus status;
+
+	/**
+	 * The failure message, may be <code>null</code>.
+	 */
+	private final String message;
+}
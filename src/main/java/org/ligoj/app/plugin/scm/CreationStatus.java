@@ -0,0 +1,93 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.function.IntConsumer;
+
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+
+/**
+ * Status of a repository creation.
+ */
+public enum CreationStatus {
+
+	/**
+	 * Waiting for an available worker.
+	 */
+	QUEUED,
+
+	/**
+	 * The create script is running.
+	 */
+	RUNNING,
+
+	/**
+	 * The repository has been created.
+	 */
+	SUCCESS,
+
+	/**
+	 * The create script has rejected the creation, for instance the repository already exists or its name is
+	 * invalid. A new execution would get the same result.
+	 */
+	REJECTED,
+
+	/**
+	 * The parameters have been rejected before the script execution.
+	 */
+	INVALID,
+
+	/**
+	 * The proxy agent did not reply, or any other failure.
+	 */
+	FAILED;
+
+	/**
+	 * Return the status of a creation from the error raised while executing or checking the create script.
+	 *
+	 * @param error
+	 *            The raised error, <code>null</code> when the creation succeeded.
+	 * @return The terminal status.
+	 */
+	public static CreationStatus of(final Throwable error) {
+		if (error == null) {
+			return SUCCESS;
+		}
+		return error instanceof ValidationJsonException ? REJECTED : FAILED;
+	}
+
+	/**
+	 * Return the status corresponding to an exit code of the create script, as checked by an exit code handler.
+	 *
+	 * @param handler
+	 *            The exit code handler, raising an error for a failed creation.
+	 * @param exitCode
+	 *            The exit code.
+	 * @return The terminal status.
+	 */
+	public static CreationStatus of(final IntConsumer handler, final int exitCode) {
+		try {
+			handler.accept(exitCode);
+			return SUCCESS;
+		} catch (final RuntimeException e) {
+			return of(e);
+		}
+	}
+
+	/**
+	 * Indicates this status is final.
+	 *
+	 * @return <code>true</code> when the creation is completed.
+	 */
+	public boolean isTerminal() {
+		return this != QUEUED && this != RUNNING;
+	}
+
+	/**
+	 * Indicates this status would be the same for a new execution of the create script, so it can be replied to
+	 * the duplicate requests instead of executing the script again.
+	 *
+	 * @return <code>true</code> when the creation does not need to be retried.
+	 */
+	public boolean isDefinitive() {
+		return this == SUCCESS || this == REJECTED;
+	}
+}
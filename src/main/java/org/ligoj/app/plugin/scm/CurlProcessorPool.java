@@ -0,0 +1,163 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.ligoj.app.resource.plugin.CurlProcessor;
+import org.ligoj.app.resource.plugin.CurlRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of reusable {@link CurlProcessor}. Each processor holds its own HTTP client and keeps its connections alive, so
+ * reusing a processor for the same host and credentials avoids the connection and TLS setup of each call. The
+ * processors are only used through this pool, and are closed when they become idle. The lookup of a processor and its
+ * in use mark are atomic, so a processor evicted while a request is in progress is closed when its last request
+ * completes.
+ */
+@Slf4j
+public class CurlProcessorPool {
+
+	/**
+	 * Default idle time before a processor is closed, in milliseconds.
+	 */
+	public static final long DEFAULT_IDLE = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Default maximum amount of pooled keys.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 50;
+
+	private final long idle;
+
+	private final int maxSize;
+
+	/**
+	 * The pooled processors by key, guarded by this pool.
+	 */
+	private final Map<String, Pooled> pool = new HashMap<>();
+
+	/**
+	 * A pooled processor and its requests in progress, guarded by the pool.
+	 */
+	private static class Pooled {
+		private final CurlProcessor processor;
+		private int inUse;
+		private long lastUsed = System.currentTimeMillis();
+		private boolean evicted;
+
+		private Pooled(final CurlProcessor processor) {
+			this.processor = processor;
+		}
+
+		private void close() {
+			try {
+				processor.close();
+			} catch (final Exception e) {
+				log.info("Unable to close a pooled processor", e);
+			}
+		}
+	}
+
+	/**
+	 * Default constructor using the default idle time and size.
+	 */
+	public CurlProcessorPool() {
+		this(DEFAULT_IDLE, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param idle
+	 *            Idle time before a processor is closed, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of pooled keys.
+	 */
+	public CurlProcessorPool(final long idle, final int maxSize) {
+		this.idle = idle;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Process a request with the pooled processor of a key, preventing its closing until the request completes.
+	 *
+	 * @param key
+	 *            The pool key, identifying the credentials and the response callback of the processor.
+	 * @param factory
+	 *            The processor factory used when the key is not yet pooled.
+	 * @param request
+	 *            The request to process.
+	 * @return <code>true</code> when the request succeeded.
+	 */
+	public boolean process(final String key, final Supplier<CurlProcessor> factory, final CurlRequest request) {
+		final Pooled pooled = acquire(key, factory);
+		try {
+			return pooled.processor.process(request);
+		} finally {
+			release(pooled);
+		}
+	}
+
+	/**
+	 * Return the pooled processor of a key, marked as in use.
+	 */
+	private synchronized Pooled acquire(final String key, final Supplier<CurlProcessor> factory) {
+		evict();
+		final Pooled pooled = pool.computeIfAbsent(key, k -> new Pooled(factory.get()));
+		pooled.inUse++;
+		pooled.lastUsed = System.currentTimeMillis();
+		return pooled;
+	}
+
+	/**
+	 * Remove the in use mark of a processor, and close it when it has been evicted meanwhile.
+	 */
+	private synchronized void release(final Pooled pooled) {
+		pooled.lastUsed = System.currentTimeMillis();
+		pooled.inUse--;
+		if (pooled.inUse == 0 && pooled.evicted) {
+			pooled.close();
+		}
+	}
+
+	/**
+	 * Evict the idle processors, and the least recently used ones exceeding the maximum size.
+	 */
+	private void evict() {
+		final long now = System.currentTimeMillis();
+		for (final Iterator<Pooled> it = pool.values().iterator(); it.hasNext();) {
+			final Pooled pooled = it.next();
+			if (pooled.inUse == 0 && now - pooled.lastUsed > idle) {
+				it.remove();
+				evict(pooled);
+			}
+		}
+		while (!pool.isEmpty() && pool.size() >= maxSize) {
+			pool.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+					.map(e -> pool.remove(e.getKey())).ifPresent(this::evict);
+		}
+	}
+
+	/**
+	 * Close an evicted processor, or defer it until its requests in progress complete.
+	 */
+	private void evict(final Pooled pooled) {
+		pooled.evicted = true;
+		if (pooled.inUse == 0) {
+			pooled.close();
+		}
+	}
+
+	/**
+	 * Evict all pooled processors.
+	 */
+	public synchronized void clear() {
+		pool.values().forEach(this::evict);
+		pool.clear();
+	}
+}
@@ -0,0 +1,24 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The merged repositories found across the SCM nodes.
+ */
+@Getter
+@AllArgsConstructor
+public class FederatedSearch {
+
+	/**
+	 * The matching repositories, ordered by relevance.
+	 */
+	private final List<NodeMatch> matches;
+
+	/**
+	 * The nodes whose search failed or did not complete before the deadline. When not empty, the matches are partial.
+	 */
+	private final List<String> incomplete;
+}
@@ -0,0 +1,85 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.ligoj.app.iam.IGroupRepository;
+
+/**
+ * Bounded cache of the DN of the groups.
+ */
+public class GroupDnCache {
+
+	/**
+	 * Default time to live of a DN, in milliseconds.
+	 */
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+	/**
+	 * Default maximum amount of cached groups.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private final TtlCache<String, String> cache;
+
+	/**
+	 * Default constructor using the default time to live and size.
+	 */
+	public GroupDnCache() {
+		this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param ttl
+	 *            Time to live of a DN, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of cached groups.
+	 */
+	public GroupDnCache(final long ttl, final int maxSize) {
+		this.cache = new TtlCache<>(ttl, maxSize);
+	}
+
+	/**
+	 * Return the DN of the given groups. Each distinct group is resolved at most once.
+	 *
+	 * @param repository
+	 *            The group repository used for the missing groups.
+	 * @param groups
+	 *            The group identifiers.
+	 * @return The space separated DN of the distinct groups, in the given order.
+	 */
+	public String getDns(final IGroupRepository repository, final Collection<String> groups) {
+		return groups.stream().map(String::trim).distinct().map(g -> getDn(repository, g))
+				.collect(Collectors.joining(" "));
+	}
+
+	private String getDn(final IGroupRepository repository, final String group) {
+		String dn = cache.get(group);
+		if (dn == null) {
+			dn = repository.findById(group).getDn();
+			cache.put(group, dn);
+		}
+		return dn;
+	}
+
+	/**
+	 * Return the amount of DN served from the cache.
+	 *
+	 * @return The amount of DN served from the cache.
+	 */
+	public long getHits() {
+		return cache.getHits();
+	}
+
+	/**
+	 * Return the amount of DN resolved by the group repository.
+	 *
+	 * @return The amount of DN resolved by the group repository.
+	 */
+	public long getMisses() {
+		return cache.getMisses();
+	}
+}
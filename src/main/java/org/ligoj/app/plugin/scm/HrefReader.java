@@ -0,0 +1,68 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Predicate;
+
+/**
+ * Streaming extractor of the <code>href</code> values of an HTML index. Only a read buffer and the current value are
+ * kept in memory, whatever the size of the index.
+ */
+public final class HrefReader {
+
+	/**
+	 * The anchor prefix as produced by the Apache and SVN listings.
+	 */
+	private static final String PREFIX = "<a href=\"";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private HrefReader() {
+		// Utility class
+	}
+
+	/**
+	 * Read the given content and notify each <code>href</code> value in the document order.
+	 *
+	 * @param reader
+	 *            The content to read. Not closed by this method.
+	 * @param consumer
+	 *            The value consumer. Returns <code>false</code> to stop the reading.
+	 * @return <code>true</code> when the whole content has been read, <code>false</code> when the consumer has stopped
+	 *         the reading.
+	 * @throws IOException
+	 *             When the content cannot be read.
+	 */
+	public static boolean read(final Reader reader, final Predicate<String> consumer) throws IOException {
+		final char[] buffer = new char[BUFFER_SIZE];
+		final StringBuilder href = new StringBuilder();
+		boolean inHref = false;
+		int matched = 0;
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++) {
+				final char c = buffer[i];
+				if (inHref) {
+					if (c == '"') {
+						inHref = false;
+						if (!consumer.test(href.toString())) {
+							return false;
+						}
+						href.setLength(0);
+					} else {
+						href.append(c);
+					}
+				} else if (c == PREFIX.charAt(matched)) {
+					matched++;
+					if (matched == PREFIX.length()) {
+						inHref = true;
+						matched = 0;
+					}
+				} else {
+					matched = c == PREFIX.charAt(0) ? 1 : 0;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,35 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Apache-style HTML listing: each repository is a link, and the parent link is only visible to an administrator.
+ */
+public class HtmlIndexProvider implements IndexProvider {
+
+	@Override
+	public boolean read(final InputStream body, final Predicate<String> consumer) throws IOException {
+		return HrefReader.read(new InputStreamReader(body, StandardCharsets.UTF_8), consumer);
+	}
+
+	@Override
+	public String toName(final String entry) {
+		return StringUtils.trimToNull(StringUtils.removeEnd(entry, "/"));
+	}
+
+	@Override
+	public boolean isAdminEntry(final String entry) {
+		return "/".equals(entry);
+	}
+
+	@Override
+	public boolean isAdminEntryRequired() {
+		return true;
+	}
+}
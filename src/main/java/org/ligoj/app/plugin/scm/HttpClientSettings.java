@@ -0,0 +1,70 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Settings of the pooled processors of the SCM and proxy agent calls, read from the "ligoj.scm.http.*" system
+ * properties.
+ */
+@Getter
+@AllArgsConstructor
+public class HttpClientSettings {
+
+	/**
+	 * System property of the maximum amount of pooled clients, one per credentials and response callback.
+	 */
+	public static final String POOL_SIZE_PROPERTY = "ligoj.scm.http.pool-size";
+
+	/**
+	 * System property of the request timeout, in milliseconds.
+	 */
+	public static final String TIMEOUT_PROPERTY = "ligoj.scm.http.timeout";
+
+	/**
+	 * System property of the idle time before a pooled client is closed, in milliseconds.
+	 */
+	public static final String IDLE_PROPERTY = "ligoj.scm.http.idle";
+
+	/**
+	 * Default maximum amount of pooled clients.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 50;
+
+	/**
+	 * Default request timeout, in milliseconds. Long enough for the create scripts.
+	 */
+	public static final int DEFAULT_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Default idle time, in milliseconds.
+	 */
+	public static final long DEFAULT_IDLE = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Maximum amount of pooled clients.
+	 */
+	private final int poolSize;
+
+	/**
+	 * Request timeout, in milliseconds.
+	 */
+	private final int timeout;
+
+	/**
+	 * Idle time before a pooled client is closed, in milliseconds.
+	 */
+	private final long idle;
+
+	/**
+	 * Return the settings of the system properties, or their default values.
+	 *
+	 * @return The configured settings.
+	 */
+	public static HttpClientSettings fromSystemProperties() {
+		return new HttpClientSettings(Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE),
+				Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT), Long.getLong(IDLE_PROPERTY, DEFAULT_IDLE));
+	}
+}
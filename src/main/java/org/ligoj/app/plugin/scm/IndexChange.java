@@ -0,0 +1,39 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The repositories added to and removed from the index of a node between two refreshes.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexChange {
+
+	/**
+	 * The sequence number of this change, unique among the nodes.
+	 */
+	private final long sequence;
+
+	/**
+	 * The node identifier.
+	 */
+	private final String node;
+
+	/**
+	 * The added repository names.
+	 */
+	private final List<String> added;
+
+	/**
+	 * The removed repository names.
+	 */
+	private final List<String> removed;
+
+	/**
+	 * The detection time stamp.
+	 */
+	private final long timestamp;
+}
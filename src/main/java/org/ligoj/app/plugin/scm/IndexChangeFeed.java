@@ -0,0 +1,209 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded feed of the index changes of all nodes. Readers are notified of the changes following a sequence number,
+ * without holding a thread while waiting.
+ */
+public class IndexChangeFeed {
+
+	/**
+	 * Default amount of retained changes.
+	 */
+	public static final int DEFAULT_CAPACITY = 1000;
+
+	private final int capacity;
+
+	/**
+	 * Retained changes, in sequence order.
+	 */
+	private final Deque<IndexChange> changes = new ArrayDeque<>();
+
+	/**
+	 * The sequence number of the last change.
+	 */
+	private long sequence;
+
+	/**
+	 * Readers waiting for the next change of a node.
+	 */
+	private final List<Subscriber> subscribers = new ArrayList<>();
+
+	/**
+	 * A reader waiting for the next change of a node.
+	 */
+	private static class Subscriber {
+		private final String node;
+		private final long since;
+		private final Consumer<IndexChanges> listener;
+
+		private Subscriber(final String node, final long since, final Consumer<IndexChanges> listener) {
+			this.node = node;
+			this.since = since;
+			this.listener = listener;
+		}
+	}
+
+	/**
+	 * Default constructor using the default capacity.
+	 */
+	public IndexChangeFeed() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param capacity
+	 *            The amount of retained changes.
+	 */
+	public IndexChangeFeed(final int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Publish the differences between two snapshots of a node index, if any.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param previous
+	 *            The previous snapshot.
+	 * @param current
+	 *            The new snapshot.
+	 */
+	public void publish(final String node, final RepositoryIndex previous, final RepositoryIndex current) {
+		final Set<String> before = new HashSet<>(previous.getNames());
+		final Set<String> after = new HashSet<>(current.getNames());
+		final List<String> added = current.getNames().stream().filter(n -> !before.contains(n))
+				.collect(Collectors.toList());
+		final List<String> removed = previous.getNames().stream().filter(n -> !after.contains(n))
+				.collect(Collectors.toList());
+		if (!added.isEmpty() || !removed.isEmpty()) {
+			publish(node, added, removed);
+		}
+	}
+
+	private void publish(final String node, final List<String> added, final List<String> removed) {
+		final Map<Subscriber, IndexChanges> notified = new LinkedHashMap<>();
+		synchronized (this) {
+			changes.addLast(new IndexChange(++sequence, node, added, removed, System.currentTimeMillis()));
+			if (changes.size() > capacity) {
+				changes.removeFirst();
+			}
+			for (final Iterator<Subscriber> it = subscribers.iterator(); it.hasNext();) {
+				final Subscriber subscriber = it.next();
+				if (subscriber.node.equals(node)) {
+					it.remove();
+					notified.put(subscriber, poll(node, subscriber.since));
+				}
+			}
+		}
+
+		// Notify outside the lock
+		notified.forEach((subscriber, result) -> subscriber.listener.accept(result));
+	}
+
+	/**
+	 * Return the sequence number of the last change.
+	 *
+	 * @return The sequence number of the last change, <code>0</code> when there is no change.
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Return the changes of a node following the given sequence number, without waiting.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param since
+	 *            The sequence number of the last known change.
+	 * @return The changes, may be empty.
+	 */
+	public synchronized IndexChanges poll(final String node, final long since) {
+		final boolean reset = since > sequence || !changes.isEmpty() && changes.getFirst().getSequence() > since + 1;
+		return new IndexChanges(sequence, reset, getChanges(node, since));
+	}
+
+	/**
+	 * Notify the changes of a node following the given sequence number, once. The listener is notified immediately
+	 * when there are already such changes, otherwise by the thread publishing the next change of this node.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param since
+	 *            The sequence number of the last known change.
+	 * @param listener
+	 *            The listener receiving the non empty or reset changes.
+	 * @return The handle cancelling the subscription, such as when the reader gives up.
+	 */
+	public Runnable subscribe(final String node, final long since, final Consumer<IndexChanges> listener) {
+		final IndexChanges current;
+		final Subscriber subscriber = new Subscriber(node, since, listener);
+		synchronized (this) {
+			current = poll(node, since);
+			if (current.getChanges().isEmpty() && !current.isReset()) {
+				subscribers.add(subscriber);
+				return () -> unsubscribe(subscriber);
+			}
+		}
+		listener.accept(current);
+		return () -> {
+			// Already notified
+		};
+	}
+
+	private synchronized void unsubscribe(final Subscriber subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	/**
+	 * Return the changes of a node following the given sequence number, waiting for them when there is none.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param since
+	 *            The sequence number of the last known change.
+	 * @param timeout
+	 *            The maximal waiting time, in milliseconds.
+	 * @return The changes, may be empty when the timeout is reached.
+	 * @throws InterruptedException
+	 *             When interrupted while waiting.
+	 */
+	public IndexChanges await(final String node, final long since, final long timeout) throws InterruptedException {
+		final CompletableFuture<IndexChanges> result = new CompletableFuture<>();
+		final Runnable cancel = subscribe(node, since, result::complete);
+		try {
+			return result.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (final TimeoutException e) {
+			return poll(node, since);
+		} catch (final ExecutionException e) {
+			// Not completed exceptionally
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			cancel.run();
+		}
+	}
+
+	private List<IndexChange> getChanges(final String node, final long since) {
+		final List<IndexChange> result = new ArrayList<>();
+		changes.stream().filter(c -> c.getSequence() > since && c.getNode().equals(node)).forEach(result::add);
+		return result;
+	}
+}
@@ -0,0 +1,30 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The changes of a node index following a sequence number.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexChanges {
+
+	/**
+	 * The sequence number to request the next changes with.
+	 */
+	private final long sequence;
+
+	/**
+	 * When <code>true</code>, some changes following the requested sequence are no more retained, and the full
+	 * index has to be read again.
+	 */
+	private final boolean reset;
+
+	/**
+	 * The changes, in sequence order.
+	 */
+	private final List<IndexChange> changes;
+}
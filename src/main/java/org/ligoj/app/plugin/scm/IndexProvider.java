@@ -0,0 +1,70 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * Reader of the repository index of a SCM flavor: HTML listing, JSON listing, paged API...
+ */
+public interface IndexProvider {
+
+	/**
+	 * Read the entries of an index response, in the document order.
+	 *
+	 * @param body
+	 *            The response body. Not closed by this method.
+	 * @param consumer
+	 *            The entry consumer. Returns <code>false</code> to stop the reading.
+	 * @return <code>true</code> when the whole body has been read, <code>false</code> when the consumer has stopped
+	 *         the reading.
+	 * @throws IOException
+	 *             When the body cannot be read.
+	 */
+	boolean read(InputStream body, Predicate<String> consumer) throws IOException;
+
+	/**
+	 * Return the repository name of an entry.
+	 *
+	 * @param entry
+	 *            The entry read from the index.
+	 * @return The repository name, or <code>null</code> when the entry is not a repository.
+	 */
+	default String toName(final String entry) {
+		return entry;
+	}
+
+	/**
+	 * Indicates the given entry proves the index is accessed with an administration access.
+	 *
+	 * @param entry
+	 *            The entry read from the index.
+	 * @return <code>true</code> when the entry is the expected administration one.
+	 */
+	default boolean isAdminEntry(final String entry) {
+		return true;
+	}
+
+	/**
+	 * Indicates a successful response must contain an administration entry to prove the administration access.
+	 *
+	 * @return <code>true</code> when an administration entry is required.
+	 */
+	default boolean isAdminEntryRequired() {
+		return false;
+	}
+
+	/**
+	 * Return the URL of a page of the index.
+	 *
+	 * @param url
+	 *            The index URL.
+	 * @param page
+	 *            The page index, starting from <code>0</code>.
+	 * @return The page URL, or <code>null</code> when there is no such page. Not paged indexes only have the page
+	 *         <code>0</code>.
+	 */
+	default String getPageUrl(final String url, final int page) {
+		return page == 0 ? url : null;
+	}
+}
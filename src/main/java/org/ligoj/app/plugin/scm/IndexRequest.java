@@ -0,0 +1,81 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.ligoj.app.resource.plugin.CurlRequest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A conditional GET request of a SCM index. The validators of the previous snapshot are sent, and the ones of the
+ * response are collected by {@link IndexResponseCallback}. The response body is not saved, only the entries read by
+ * the {@link IndexProvider} are.
+ */
+@Getter
+@Setter
+public class IndexRequest extends CurlRequest {
+
+	/**
+	 * The "ETag" header of the response.
+	 */
+	private String etag;
+
+	/**
+	 * The "Last-Modified" header of the response.
+	 */
+	private String lastModified;
+
+	/**
+	 * When <code>true</code>, the server replied the previous snapshot is still valid.
+	 */
+	private boolean notModified;
+
+	/**
+	 * The index reader.
+	 */
+	private final IndexProvider provider;
+
+	/**
+	 * The entries read from the response, in the document order.
+	 */
+	private final List<String> entries = new ArrayList<>();
+
+	/**
+	 * When this predicate matches an entry, the remaining content is not read.
+	 */
+	private Predicate<String> terminal = entry -> false;
+
+	/**
+	 * Build a conditional request.
+	 *
+	 * @param url
+	 *            The index URL.
+	 * @param provider
+	 *            The index reader.
+	 * @param previous
+	 *            The previous snapshot of the same index, may be <code>null</code>.
+	 */
+	public IndexRequest(final String url, final IndexProvider provider, final RepositoryIndex previous) {
+		super(HttpMethod.GET, url, null, toHeaders(url, previous));
+		this.provider = provider;
+	}
+
+	private static String[] toHeaders(final String url, final RepositoryIndex previous) {
+		final List<String> headers = new ArrayList<>();
+		if (previous != null && url.equals(previous.getUrl())) {
+			if (previous.getEtag() != null) {
+				headers.add(HttpHeaders.IF_NONE_MATCH + ":" + previous.getEtag());
+			}
+			if (previous.getLastModified() != null) {
+				headers.add(HttpHeaders.IF_MODIFIED_SINCE + ":" + previous.getLastModified());
+			}
+		}
+		return headers.toArray(new String[headers.size()]);
+	}
+}
@@ -0,0 +1,53 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.ligoj.app.resource.plugin.CurlRequest;
+import org.ligoj.app.resource.plugin.HttpResponseCallback;
+
+/**
+ * Response callback of {@link IndexRequest}: accepts "304 Not Modified", collects the cache validators and streams
+ * the body through the {@link IndexProvider} of the request.
+ */
+public class IndexResponseCallback implements HttpResponseCallback {
+
+	@Override
+	public boolean onResponse(final CurlRequest request, final CloseableHttpResponse response) throws IOException {
+		final IndexRequest indexRequest = (IndexRequest) request;
+		final int status = response.getStatusLine().getStatusCode();
+		if (status == HttpStatus.SC_NOT_MODIFIED) {
+			indexRequest.setNotModified(true);
+			return true;
+		}
+		if (status < HttpStatus.SC_OK || status >= HttpStatus.SC_MULTIPLE_CHOICES) {
+			return false;
+		}
+		indexRequest.setEtag(getHeader(response, HttpHeaders.ETAG));
+		indexRequest.setLastModified(getHeader(response, HttpHeaders.LAST_MODIFIED));
+		if (response.getEntity() != null) {
+			final InputStream content = response.getEntity().getContent();
+			final boolean complete = indexRequest.getProvider().read(content, entry -> {
+				indexRequest.getEntries().add(entry);
+				return !indexRequest.getTerminal().test(entry);
+			});
+			if (complete) {
+				content.close();
+			} else {
+				// Abort the connection instead of consuming the remaining content
+				response.close();
+			}
+		}
+		return true;
+	}
+
+	private String getHeader(final CloseableHttpResponse response, final String name) {
+		final Header header = response.getFirstHeader(name);
+		return header == null ? null : header.getValue();
+	}
+}
@@ -0,0 +1,73 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * JSON listing: the first array of the document, either an array of names, or an array of objects such as the
+ * repositories of Gitea or the projects of GitLab. The body is read with a streaming parser, only the name attribute
+ * of each object is kept.
+ */
+public class JsonIndexProvider implements IndexProvider {
+
+	/**
+	 * Name attributes, by preference.
+	 */
+	private static final List<String> NAME_FIELDS = Arrays.asList("full_name", "path_with_namespace", "name");
+
+	private static final JsonFactory FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+	@Override
+	public boolean read(final InputStream body, final Predicate<String> consumer) throws IOException {
+		try (JsonParser parser = FACTORY.createParser(body)) {
+			// Move to the first array
+			JsonToken token = parser.nextToken();
+			while (token != null && token != JsonToken.START_ARRAY) {
+				token = parser.nextToken();
+			}
+			if (token == null) {
+				return true;
+			}
+			for (token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser
+					.nextToken()) {
+				final String name = readName(parser, token);
+				if (name != null && !consumer.test(name)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the name of an array item and move to its last token.
+	 */
+	private String readName(final JsonParser parser, final JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_STRING) {
+			return parser.getText();
+		}
+		if (token != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		String name = null;
+		int rank = NAME_FIELDS.size();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final int fieldRank = NAME_FIELDS.indexOf(parser.getCurrentName());
+			if (parser.nextToken() == JsonToken.VALUE_STRING && fieldRank >= 0 && fieldRank < rank) {
+				name = parser.getText();
+				rank = fieldRank;
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return name;
+	}
+}
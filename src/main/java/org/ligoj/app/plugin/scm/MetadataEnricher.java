@@ -0,0 +1,144 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically collects the metadata of the recently viewed repositories. The latest metadata of a repository is
+ * served without remote call, the first view only registers its collection. A failed collection drops the previous
+ * metadata, so they are never older than a collection period.
+ */
+@Slf4j
+public class MetadataEnricher {
+
+	/**
+	 * Default delay between two collections of a repository, in milliseconds.
+	 */
+	public static final long DEFAULT_PERIOD = TimeUnit.MINUTES.toMillis(15);
+
+	/**
+	 * Default delay after the last view of a repository before its collection stops, in milliseconds.
+	 */
+	public static final long DEFAULT_IDLE = TimeUnit.DAYS.toMillis(1);
+
+	private final long idle;
+
+	/**
+	 * The current time provider, in milliseconds.
+	 */
+	private final LongSupplier clock;
+
+	/**
+	 * Collected repositories, by key.
+	 */
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * A collected repository.
+	 */
+	private static class Entry {
+		private volatile Supplier<RepositoryMetadata> collector;
+		private volatile RepositoryMetadata metadata;
+		private volatile long accessed;
+	}
+
+	/**
+	 * Default constructor using the default delays.
+	 */
+	public MetadataEnricher() {
+		this(DEFAULT_PERIOD, DEFAULT_IDLE);
+	}
+
+	/**
+	 * Constructor using the system clock and an own scheduler.
+	 *
+	 * @param period
+	 *            Delay between two collections of a repository, in milliseconds.
+	 * @param idle
+	 *            Delay after the last view of a repository before its collection stops, in milliseconds.
+	 */
+	public MetadataEnricher(final long period, final long idle) {
+		this(period, idle, Executors.newSingleThreadScheduledExecutor(ScmExecutors.newThreadFactory("scm-metadata")),
+				System::currentTimeMillis);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param period
+	 *            Delay between two collections of a repository, in milliseconds.
+	 * @param idle
+	 *            Delay after the last view of a repository before its collection stops, in milliseconds.
+	 * @param scheduler
+	 *            The scheduler of the collections, shut down with this enricher.
+	 * @param clock
+	 *            The current time provider, in milliseconds.
+	 */
+	public MetadataEnricher(final long period, final long idle, final ScheduledExecutorService scheduler,
+			final LongSupplier clock) {
+		this.idle = idle;
+		this.scheduler = scheduler;
+		this.clock = clock;
+		scheduler.scheduleWithFixedDelay(this::collectAll, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Return the latest metadata of a repository, and register its collection.
+	 *
+	 * @param key
+	 *            The repository key.
+	 * @param collector
+	 *            The metadata collector, returning <code>null</code> when not available.
+	 * @return The latest metadata, or <code>null</code> when not yet collected.
+	 */
+	public RepositoryMetadata get(final String key, final Supplier<RepositoryMetadata> collector) {
+		final Entry created = new Entry();
+		final Entry entry = entries.computeIfAbsent(key, k -> created);
+		entry.collector = collector;
+		entry.accessed = clock.getAsLong();
+		if (entry == created) {
+			// First view, collect now
+			scheduler.execute(() -> collect(key, entry));
+		}
+		return entry.metadata;
+	}
+
+	/**
+	 * Collect the metadata of the viewed repositories, and forget the idle ones.
+	 */
+	void collectAll() {
+		final long now = clock.getAsLong();
+		entries.entrySet().removeIf(e -> now - e.getValue().accessed > idle);
+		entries.forEach(this::collect);
+	}
+
+	private void collect(final String key, final Entry entry) {
+		try {
+			final RepositoryMetadata metadata = entry.collector.get();
+			if (metadata != null) {
+				metadata.setCollected(clock.getAsLong());
+			}
+			entry.metadata = metadata;
+		} catch (final RuntimeException e) {
+			// The previous metadata are stale
+			log.warn("Unable to collect the metadata of repository {}", key, e);
+			entry.metadata = null;
+		}
+	}
+
+	/**
+	 * Stop the collections.
+	 */
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+}
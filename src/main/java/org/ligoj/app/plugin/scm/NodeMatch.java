@@ -0,0 +1,27 @@
+package org.ligoj.app.plugin.scm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A repository found in the index of a node.
+ */
+@Getter
+@AllArgsConstructor
+public class NodeMatch {
+
+	/**
+	 * The node identifier.
+	 */
+	private final String node;
+
+	/**
+	 * The repository identifier.
+	 */
+	private final String id;
+
+	/**
+	 * The repository name.
+	 */
+	private final String name;
+}
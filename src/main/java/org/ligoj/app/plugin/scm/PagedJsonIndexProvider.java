@@ -0,0 +1,19 @@
+package org.ligoj.app.plugin.scm;
+
+/**
+ * Paged JSON API: the pages are requested in turn until an empty one. The page parameters of Gitea and GitLab are
+ * both sent.
+ */
+public class PagedJsonIndexProvider extends JsonIndexProvider {
+
+	/**
+	 * Requested amount of repositories per page.
+	 */
+	public static final int PAGE_SIZE = 100;
+
+	@Override
+	public String getPageUrl(final String url, final int page) {
+		return url + (url.indexOf('?') == -1 ? '?' : '&') + "page=" + (page + 1) + "&limit=" + PAGE_SIZE
+				+ "&per_page=" + PAGE_SIZE;
+	}
+}
@@ -0,0 +1,210 @@
+package org.ligoj.app.plugin.scm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Cache of the resolved node and subscription parameters. The secret values are kept encrypted with a key living
+ * only in this cache, and are decrypted on each lookup. Each lookup returns a new map the caller may change. An entry
+ * is reloaded after its time to live or its invalidation, and a load running during an invalidation is not cached.
+ */
+public class ParameterCache {
+
+	/**
+	 * Default time to live of the parameters, in milliseconds.
+	 */
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Default maximum amount of cached nodes and subscriptions.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private static final String CIPHER = "AES/GCM/NoPadding";
+
+	private static final int IV_LENGTH = 12;
+
+	private static final int TAG_LENGTH = 128;
+
+	private final SecureRandom random = new SecureRandom();
+
+	/**
+	 * The encryption key of the secret values.
+	 */
+	private final SecretKey key;
+
+	/**
+	 * The secret parameter identifiers.
+	 */
+	private final Set<String> secrets;
+
+	/**
+	 * Parameters by key: the plain {@link String} values and the encrypted <code>byte[]</code> secret values.
+	 */
+	private final TtlCache<String, Map<String, Object>> cache;
+
+	/**
+	 * Invalidation counter, incremented by each invalidation.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Constructor using the default time to live and size.
+	 *
+	 * @param secrets
+	 *            The secret parameter identifiers.
+	 */
+	public ParameterCache(final Collection<String> secrets) {
+		this(secrets, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Constructor using the system clock.
+	 *
+	 * @param secrets
+	 *            The secret parameter identifiers.
+	 * @param ttl
+	 *            Time to live of the parameters, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of cached nodes and subscriptions.
+	 */
+	public ParameterCache(final Collection<String> secrets, final long ttl, final int maxSize) {
+		this(secrets, ttl, maxSize, System::currentTimeMillis);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param secrets
+	 *            The secret parameter identifiers.
+	 * @param ttl
+	 *            Time to live of the parameters, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of cached nodes and subscriptions.
+	 * @param clock
+	 *            The current time provider, in milliseconds.
+	 */
+	public ParameterCache(final Collection<String> secrets, final long ttl, final int maxSize,
+			final LongSupplier clock) {
+		this.secrets = new HashSet<>(secrets);
+		this.cache = new TtlCache<>(ttl, maxSize, clock);
+		try {
+			final KeyGenerator generator = KeyGenerator.getInstance("AES");
+			generator.init(128, random);
+			this.key = generator.generateKey();
+		} catch (final GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create the parameter encryption key", e);
+		}
+	}
+
+	/**
+	 * Return the parameters of the given key.
+	 *
+	 * @param id
+	 *            The node or subscription key.
+	 * @param loader
+	 *            The parameter loader, called when the parameters are not cached.
+	 * @return A new map of the parameters.
+	 */
+	public Map<String, String> get(final String id, final Supplier<Map<String, String>> loader) {
+		final Map<String, Object> sealed = cache.get(id);
+		if (sealed == null) {
+			final long loading = generation.get();
+			final Map<String, String> parameters = new HashMap<>(loader.get());
+			synchronized (generation) {
+				if (loading == generation.get()) {
+					// Not invalidated while loading
+					cache.put(id, sealValues(parameters));
+				}
+			}
+			return parameters;
+		}
+		return unseal(sealed);
+	}
+
+	/**
+	 * Return a provider of the given parameters keeping the secret values encrypted. They are decrypted on each call.
+	 *
+	 * @param parameters
+	 *            The parameters to hold.
+	 * @return A provider of a new map of the parameters.
+	 */
+	public Supplier<Map<String, String>> seal(final Map<String, String> parameters) {
+		final Map<String, Object> sealed = sealValues(parameters);
+		return () -> unseal(sealed);
+	}
+
+	/**
+	 * Evict the parameters of the given key.
+	 *
+	 * @param id
+	 *            The node or subscription key.
+	 */
+	public void invalidate(final String id) {
+		synchronized (generation) {
+			generation.incrementAndGet();
+			cache.remove(id);
+		}
+	}
+
+	/**
+	 * Evict all parameters.
+	 */
+	public void clear() {
+		synchronized (generation) {
+			generation.incrementAndGet();
+			cache.clear();
+		}
+	}
+
+	private Map<String, Object> sealValues(final Map<String, String> parameters) {
+		final Map<String, Object> sealed = new HashMap<>();
+		parameters.forEach((k, v) -> sealed.put(k, v != null && secrets.contains(k) ? encrypt(v) : v));
+		return sealed;
+	}
+
+	private Map<String, String> unseal(final Map<String, Object> sealed) {
+		final Map<String, String> parameters = new HashMap<>();
+		sealed.forEach((k, v) -> parameters.put(k, v instanceof byte[] ? decrypt((byte[]) v) : (String) v));
+		return parameters;
+	}
+
+	private byte[] encrypt(final String value) {
+		try {
+			final byte[] iv = new byte[IV_LENGTH];
+			random.nextBytes(iv);
+			final Cipher cipher = Cipher.getInstance(CIPHER);
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+			final byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+			return ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array();
+		} catch (final GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to encrypt a parameter", e);
+		}
+	}
+
+	private String decrypt(final byte[] value) {
+		try {
+			final Cipher cipher = Cipher.getInstance(CIPHER);
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, value, 0, IV_LENGTH));
+			return new String(cipher.doFinal(value, IV_LENGTH, value.length - IV_LENGTH), StandardCharsets.UTF_8);
+		} catch (final GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to decrypt a parameter", e);
+		}
+	}
+}
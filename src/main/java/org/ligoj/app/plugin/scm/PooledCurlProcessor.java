@@ -0,0 +1,91 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.ligoj.app.resource.plugin.CurlProcessor;
+import org.ligoj.app.resource.plugin.CurlRequest;
+import org.ligoj.app.resource.plugin.DefaultHttpResponseCallback;
+import org.ligoj.app.resource.plugin.HttpResponseCallback;
+
+/**
+ * A {@link CurlProcessor} shared by several requests through {@link CurlProcessorPool}, so the connections of its
+ * HTTP client are kept alive. The requests are executed by {@link CurlProcessor}, this processor only adds a basic
+ * authentication header when a user is defined, bounds the timeout of each request by the running status check, and
+ * flags the proxy agent requests failing before being sent.
+ */
+public class PooledCurlProcessor extends CurlProcessor {
+
+	/**
+	 * The "Authorization" header value, <code>null</code> for an anonymous access.
+	 */
+	private final String authorization;
+
+	/**
+	 * The request timeout, in milliseconds.
+	 */
+	private final int timeout;
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param user
+	 *            The user name, may be <code>null</code> for an anonymous access.
+	 * @param password
+	 *            The user password.
+	 * @param callback
+	 *            The stateless response callback, may be <code>null</code> for the default one.
+	 * @param settings
+	 *            The timeout settings.
+	 */
+	public PooledCurlProcessor(final String user, final String password, final HttpResponseCallback callback,
+			final HttpClientSettings settings) {
+		super(callback == null ? new DefaultHttpResponseCallback() : callback);
+		this.authorization = StringUtils.isBlank(user) ? null
+				: "Basic " + Base64.getEncoder()
+						.encodeToString((user + ":" + StringUtils.defaultString(password)).getBytes(StandardCharsets.UTF_8));
+		this.timeout = settings.getTimeout();
+	}
+
+	@Override
+	protected boolean process(final CurlRequest request) {
+		if (authorization != null) {
+			request.getHeaders().put(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		request.setTimeout(StatusChecker.getTimeout(timeout));
+		return super.process(request);
+	}
+
+	@Override
+	protected boolean call(final CurlRequest request, final String url) throws Exception {
+		try {
+			return super.call(request, url);
+		} catch (final IOException e) {
+			if (request instanceof AgentRequest && isNotSent(e)) {
+				((AgentRequest) request).setUnreachable(true);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Indicate the failure occurred before the request was sent: unknown host, refused connection or connection
+	 * timeout.
+	 *
+	 * @param e
+	 *            The request failure.
+	 * @return <code>true</code> when the server has not received the request.
+	 */
+	protected static boolean isNotSent(final IOException e) {
+		return e instanceof UnknownHostException || e instanceof ConnectException
+				|| e instanceof ConnectTimeoutException || e instanceof NoRouteToHostException;
+	}
+}
@@ -0,0 +1,196 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Routes the proxy agent calls among the agents of a node. The least loaded agent is tried first: the one having the
+ * fewest outstanding calls relative to its health, the success ratio of its recent calls. The agents rejected by the
+ * circuit breaker are skipped.
+ */
+public class ProxyAgentPool {
+
+	/**
+	 * Weight of the latest call in the health of an agent.
+	 */
+	private static final double DECAY = 0.2;
+
+	/**
+	 * Minimal health of an agent, so that a recovered agent gets calls again.
+	 */
+	private static final double MIN_HEALTH = 0.05;
+
+	/**
+	 * Duration of the throughput window, in seconds.
+	 */
+	private static final int WINDOW = 60;
+
+	private final CircuitBreaker breaker;
+
+	private final Map<String, Agent> agents = new ConcurrentHashMap<>();
+
+	/**
+	 * Statistics of an agent.
+	 */
+	private static class Agent {
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private volatile double health = 1;
+
+		/**
+		 * Completed calls of the last seconds, by second modulo the window.
+		 */
+		private final long[] seconds = new long[WINDOW];
+		private final long[] counts = new long[WINDOW];
+
+		private synchronized void complete(final boolean success) {
+			health = Math.max(MIN_HEALTH, health * (1 - DECAY) + (success ? DECAY : 0));
+			final long second = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+			final int slot = (int) (second % WINDOW);
+			if (seconds[slot] != second) {
+				seconds[slot] = second;
+				counts[slot] = 0;
+			}
+			counts[slot]++;
+		}
+
+		/**
+		 * Return the calls completed during the last {@value ProxyAgentPool#WINDOW} seconds.
+		 */
+		private synchronized long getThroughput() {
+			final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+			long total = 0;
+			for (int i = 0; i < WINDOW; i++) {
+				if (now - seconds[i] < WINDOW) {
+					total += counts[i];
+				}
+			}
+			return total;
+		}
+
+		private double getScore() {
+			return (outstanding.get() + 1) / health;
+		}
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param breaker
+	 *            The circuit breaker of the agents, keyed by agent URL.
+	 */
+	public ProxyAgentPool(final CircuitBreaker breaker) {
+		this.breaker = breaker;
+	}
+
+	/**
+	 * Return the agent URLs of a parameter value.
+	 *
+	 * @param urls
+	 *            The comma separated agent URLs, may be <code>null</code>.
+	 * @return The distinct agent URLs, without trailing "/".
+	 */
+	public static List<String> split(final String urls) {
+		return Arrays.stream(StringUtils.split(StringUtils.defaultString(urls), ',')).map(StringUtils::trim)
+				.map(u -> StringUtils.removeEnd(u, "/")).filter(StringUtils::isNotEmpty).distinct()
+				.collect(Collectors.toList());
+	}
+
+	private Agent getAgent(final String url) {
+		return agents.computeIfAbsent(url, u -> new Agent());
+	}
+
+	/**
+	 * Return the available agents in the order they should be tried.
+	 *
+	 * @param urls
+	 *            The comma separated agent URLs.
+	 * @return The available agent URLs, least loaded first. Empty when all agents are rejected by the circuit
+	 *         breaker.
+	 */
+	public List<String> route(final String urls) {
+		final List<String> available = split(urls).stream().filter(u -> !breaker.isOpen(u))
+				.collect(Collectors.toList());
+
+		// Spread the calls among the agents having the same score
+		Collections.shuffle(available);
+		available.sort(Comparator.comparingDouble(u -> getAgent(u).getScore()));
+		return available;
+	}
+
+	/**
+	 * Record the start of a call.
+	 *
+	 * @param url
+	 *            The agent URL.
+	 */
+	public void start(final String url) {
+		getAgent(url).outstanding.incrementAndGet();
+	}
+
+	/**
+	 * Record the end of a call.
+	 *
+	 * @param url
+	 *            The agent URL.
+	 * @param success
+	 *            <code>true</code> when the call succeeded.
+	 */
+	public void end(final String url, final boolean success) {
+		final Agent agent = getAgent(url);
+		agent.outstanding.decrementAndGet();
+		agent.requests.incrementAndGet();
+		if (!success) {
+			agent.failures.incrementAndGet();
+		}
+		agent.complete(success);
+	}
+
+	/**
+	 * Record the end of a call that has not been sent to the agent, without changing its statistics.
+	 *
+	 * @param url
+	 *            The agent URL.
+	 */
+	public void release(final String url) {
+		getAgent(url).outstanding.decrementAndGet();
+	}
+
+	/**
+	 * Return the status of the agents: their circuit breaker status, outstanding calls, completed and failed calls,
+	 * health, and calls completed during the last minute.
+	 *
+	 * @param urls
+	 *            The comma separated agent URLs.
+	 * @return The status of each agent.
+	 */
+	public List<Map<String, Object>> getStatus(final String urls) {
+		final List<Map<String, Object>> result = new ArrayList<>();
+		for (final String url : split(urls)) {
+			final Agent agent = getAgent(url);
+			final Map<String, Object> status = new LinkedHashMap<>();
+			status.put("url", url);
+			status.putAll(breaker.getStatus(url));
+			status.put("outstanding", agent.outstanding.get());
+			status.put("requests", agent.requests.get());
+			status.put("errors", agent.failures.get());
+			status.put("health", agent.health);
+			status.put("throughput", agent.getThroughput());
+			result.add(status);
+		}
+		return result;
+	}
+}
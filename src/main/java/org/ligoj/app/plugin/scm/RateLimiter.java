@@ -0,0 +1,69 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed rate limiter spacing the permits of a same key by a fixed interval.
+ */
+public class RateLimiter {
+
+	/**
+	 * Interval between two permits of a same key, in nanoseconds.
+	 */
+	private final long interval;
+
+	/**
+	 * Next available permit time of each key, in nanoseconds.
+	 */
+	private final Map<String, AtomicLong> next = new ConcurrentHashMap<>();
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param permitsPerSecond
+	 *            The maximal amount of permits per second of each key.
+	 */
+	public RateLimiter(final double permitsPerSecond) {
+		this.interval = toInterval(permitsPerSecond);
+	}
+
+	/**
+	 * Wait for a permit of the given key.
+	 *
+	 * @param key
+	 *            The limited resource key.
+	 * @throws InterruptedException
+	 *             When interrupted while waiting.
+	 */
+	public void acquire(final String key) throws InterruptedException {
+		acquire(key, interval);
+	}
+
+	/**
+	 * Wait for a permit of the given key, with a specific rate.
+	 *
+	 * @param key
+	 *            The limited resource key.
+	 * @param permitsPerSecond
+	 *            The maximal amount of permits per second of this key.
+	 * @throws InterruptedException
+	 *             When interrupted while waiting.
+	 */
+	public void acquire(final String key, final double permitsPerSecond) throws InterruptedException {
+		acquire(key, toInterval(permitsPerSecond));
+	}
+
+	private static long toInterval(final double permitsPerSecond) {
+		return (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+	}
+
+	private void acquire(final String key, final long interval) throws InterruptedException {
+		final long now = System.nanoTime();
+		final long slot = Math.max(now, next.computeIfAbsent(key, k -> new AtomicLong(now))
+				.getAndUpdate(n -> Math.max(n, now) + interval));
+		TimeUnit.NANOSECONDS.sleep(slot - now);
+	}
+}
@@ -0,0 +1,311 @@
+package org.ligoj.app.plugin.scm;
+
+import java.text.Format;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.resource.NormalizeFormat;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * An immutable and searchable snapshot of the repositories listed by the root index of a SCM node.
+ */
+@Getter
+public class RepositoryIndex {
+
+	/**
+	 * Length of the indexed n-grams.
+	 */
+	private static final int GRAM = 3;
+
+	/**
+	 * Sort property of an alphabetical search.
+	 */
+	public static final String SORT_NAME = "name";
+
+	/**
+	 * The index URL this snapshot has been built from.
+	 */
+	private final String url;
+
+	/**
+	 * Repository names, in the index order.
+	 */
+	private final List<String> names;
+
+	/**
+	 * The "ETag" header of the index response, may be <code>null</code>.
+	 */
+	private final String etag;
+
+	/**
+	 * The "Last-Modified" header of the index response, may be <code>null</code>.
+	 */
+	private final String lastModified;
+
+	/**
+	 * The time stamp of the last successful synchronization with the SCM server.
+	 */
+	private final long timestamp;
+
+	/**
+	 * Normalized repository names, with the same identifiers as {@link #names}.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final String[] normalized;
+
+	/**
+	 * Trigram of normalized names to the ordered identifiers of the names containing it.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Map<String, int[]> trigrams;
+
+	/**
+	 * Repository names, for the existence checks.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Set<String> nameSet;
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param url
+	 *            The index URL.
+	 * @param names
+	 *            Repository names, in the index order.
+	 * @param etag
+	 *            The "ETag" header of the index response, may be <code>null</code>.
+	 * @param lastModified
+	 *            The "Last-Modified" header of the index response, may be <code>null</code>.
+	 */
+	public RepositoryIndex(final String url, final List<String> names, final String etag, final String lastModified) {
+		this(url, Collections.unmodifiableList(names), etag, lastModified, System.currentTimeMillis());
+	}
+
+	private RepositoryIndex(final String url, final List<String> names, final String etag, final String lastModified,
+			final long timestamp) {
+		this(url, names, etag, lastModified, timestamp, normalize(names));
+	}
+
+	private RepositoryIndex(final String url, final List<String> names, final String etag, final String lastModified,
+			final long timestamp, final String[] normalized) {
+		this(url, names, etag, lastModified, timestamp, normalized, toTrigrams(normalized), new HashSet<>(names));
+	}
+
+	private RepositoryIndex(final String url, final List<String> names, final String etag, final String lastModified,
+			final long timestamp, final String[] normalized, final Map<String, int[]> trigrams,
+			final Set<String> nameSet) {
+		this.url = url;
+		this.names = names;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.timestamp = timestamp;
+		this.normalized = normalized;
+		this.trigrams = trigrams;
+		this.nameSet = nameSet;
+	}
+
+	private static String[] normalize(final List<String> names) {
+		final Format format = new NormalizeFormat();
+		return names.stream().map(format::format).toArray(String[]::new);
+	}
+
+	/**
+	 * Restore a saved index.
+	 *
+	 * @param url
+	 *            The index URL.
+	 * @param names
+	 *            Repository names, in the index order.
+	 * @param etag
+	 *            The "ETag" header of the index response, may be <code>null</code>.
+	 * @param lastModified
+	 *            The "Last-Modified" header of the index response, may be <code>null</code>.
+	 * @param timestamp
+	 *            The time stamp of the last successful synchronization with the SCM server.
+	 * @return The restored index.
+	 */
+	public static RepositoryIndex restore(final String url, final List<String> names, final String etag,
+			final String lastModified, final long timestamp) {
+		return new RepositoryIndex(url, Collections.unmodifiableList(names), etag, lastModified, timestamp);
+	}
+
+	/**
+	 * Indicates the given repository name can be listed by a root index: a top level name, without "/". The absence
+	 * of a name from an index is definitive only for such names.
+	 *
+	 * @param name
+	 *            The exact repository name.
+	 * @return <code>true</code> when {@link #contains(String)} is definitive for this name.
+	 */
+	public static boolean isListable(final String name) {
+		return name.indexOf('/') < 0;
+	}
+
+	/**
+	 * Indicates the given repository is listed by this index. A name that is not listable is never contained.
+	 *
+	 * @param name
+	 *            The exact repository name.
+	 * @return <code>true</code> when listed.
+	 * @see #isListable(String)
+	 */
+	public boolean contains(final String name) {
+		return nameSet.contains(name);
+	}
+
+	/**
+	 * Return a copy of this index considered as synchronized now. Used when the SCM server replies the index has not
+	 * been modified.
+	 *
+	 * @return A new index sharing the same content.
+	 */
+	public RepositoryIndex touch() {
+		return new RepositoryIndex(url, names, etag, lastModified, System.currentTimeMillis(), normalized, trigrams,
+				nameSet);
+	}
+
+	/**
+	 * Return the repositories whose normalized name contains the given criteria.
+	 *
+	 * @param criteria
+	 *            The search criteria.
+	 * @return The matching repository names, ordered by relevance.
+	 */
+	public List<String> search(final String criteria) {
+		return search(criteria, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Return the most relevant repositories whose normalized name contains the given criteria. Exact matches come
+	 * first, then the prefix matches, then the other ones. Repositories of the same relevance are ordered by name.
+	 *
+	 * @param criteria
+	 *            The search criteria.
+	 * @param limit
+	 *            The maximum amount of returned names.
+	 * @return The matching repository names, ordered by relevance.
+	 */
+	public List<String> search(final String criteria, final int limit) {
+		return search(criteria, PageRequest.of(0, limit)).getContent();
+	}
+
+	/**
+	 * Return a page of the repositories whose normalized name contains the given criteria. Only the matches up to the
+	 * requested page are ordered, the other ones are only counted.
+	 *
+	 * @param criteria
+	 *            The search criteria.
+	 * @param pageable
+	 *            The requested page. When sorted by {@value #SORT_NAME}, the names are ordered alphabetically,
+	 *            otherwise by relevance as {@link #search(String, int)}.
+	 * @return The requested page and the total amount of matches.
+	 */
+	public Page<String> search(final String criteria, final Pageable pageable) {
+		final String formatCriteria = new NormalizeFormat().format(StringUtils.defaultString(criteria));
+		final Sort.Order order = pageable.getSort().getOrderFor(SORT_NAME);
+		Comparator<Integer> comparator = order == null ? comparator(formatCriteria)
+				: Comparator.<Integer, String>comparing(i -> normalized[i]).thenComparing(Comparator.naturalOrder());
+		if (order != null && order.isDescending()) {
+			comparator = comparator.reversed();
+		}
+
+		// Keep only the best matches up to the requested page in a heap whose head is the worst one
+		final long bound = Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+		final PriorityQueue<Integer> best = new PriorityQueue<>(comparator.reversed());
+		final int[] total = new int[1];
+		candidates(formatCriteria).filter(i -> normalized[i].contains(formatCriteria)).forEach(i -> {
+			total[0]++;
+			best.add(i);
+			if (best.size() > bound) {
+				best.poll();
+			}
+		});
+		return new PageImpl<>(best.stream().sorted(comparator).skip(pageable.getOffset()).map(names::get)
+				.collect(Collectors.toList()), pageable, total[0]);
+	}
+
+	/**
+	 * Return the relevance ordering for the given normalized criteria.
+	 */
+	private Comparator<Integer> comparator(final String formatCriteria) {
+		return Comparator.<Integer>comparingInt(i -> rank(normalized[i], formatCriteria))
+				.thenComparing(i -> normalized[i]).thenComparing(Comparator.naturalOrder());
+	}
+
+	/**
+	 * Return the relevance rank of a normalized name: the lower, the better.
+	 *
+	 * @param name
+	 *            The normalized name.
+	 * @param formatCriteria
+	 *            The normalized criteria contained in the name.
+	 * @return <code>0</code> for an exact match, <code>1</code> for a prefix match, <code>2</code> otherwise.
+	 */
+	static int rank(final String name, final String formatCriteria) {
+		if (name.equals(formatCriteria)) {
+			return 0;
+		}
+		return name.startsWith(formatCriteria) ? 1 : 2;
+	}
+
+	/**
+	 * Return the identifiers of the names possibly containing the given criteria. A criteria shorter than a trigram
+	 * matches all names.
+	 */
+	private IntStream candidates(final String formatCriteria) {
+		if (formatCriteria.length() < GRAM) {
+			return IntStream.range(0, normalized.length);
+		}
+
+		// Use the most selective trigram of the criteria
+		int[] postings = null;
+		for (int i = 0; i <= formatCriteria.length() - GRAM; i++) {
+			final int[] gramPostings = trigrams.get(formatCriteria.substring(i, i + GRAM));
+			if (gramPostings == null) {
+				return IntStream.empty();
+			}
+			if (postings == null || gramPostings.length < postings.length) {
+				postings = gramPostings;
+			}
+		}
+		return Arrays.stream(postings);
+	}
+
+	/**
+	 * Build the trigram index of the normalized names. Each posting list is ordered and without duplicate.
+	 */
+	private static Map<String, int[]> toTrigrams(final String[] normalized) {
+		final Map<String, List<Integer>> postings = new HashMap<>();
+		for (int id = 0; id < normalized.length; id++) {
+			final String name = normalized[id];
+			for (int i = 0; i <= name.length() - GRAM; i++) {
+				final List<Integer> list = postings.computeIfAbsent(name.substring(i, i + GRAM), k -> new ArrayList<>());
+				if (list.isEmpty() || list.get(list.size() - 1) != id) {
+					list.add(id);
+				}
+			}
+		}
+		final Map<String, int[]> result = new HashMap<>(postings.size());
+		postings.forEach((gram, list) -> result.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+		return result;
+	}
+}
@@ -0,0 +1,211 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per node cache of {@link RepositoryIndex}. A snapshot older than the refresh delay is still served while a
+ * conditional reload runs in the background. A snapshot older than the time to live is reloaded synchronously. The
+ * on-disk snapshot of a node is only restored by its first access, to serve it at once after a start. The changes are
+ * computed from the last loaded snapshot of the node, even when it has been evicted, expired or loaded from another
+ * URL.
+ */
+@Slf4j
+public class RepositoryIndexCache {
+
+	/**
+	 * Default delay before a background refresh of an index, in milliseconds.
+	 */
+	public static final long DEFAULT_REFRESH = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Default time to live of an index, in milliseconds.
+	 */
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(30);
+
+	/**
+	 * Default maximum amount of cached nodes.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 100;
+
+	/**
+	 * Background refresh and snapshot executor.
+	 */
+	private final ExecutorService refresher = ScmExecutors.newExecutor("scm-index-refresh", 2);
+
+	private final TtlCache<String, RepositoryIndex> cache;
+
+	private final long refresh;
+
+	/**
+	 * Snapshot store, may be <code>null</code>.
+	 */
+	private final RepositoryIndexStore store;
+
+	/**
+	 * Nodes whose on-disk snapshot has already been looked up.
+	 */
+	private final Set<String> started = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Nodes having a running background refresh.
+	 */
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Last loaded snapshot of each node, kept across the evictions as the base of the next changes.
+	 */
+	private final Map<String, RepositoryIndex> bases = new ConcurrentHashMap<>();
+
+	/**
+	 * Changes detected by the loads.
+	 */
+	@Getter
+	private final IndexChangeFeed changes = new IndexChangeFeed();
+
+	/**
+	 * In flight loads.
+	 */
+	private final SingleFlight<String, RepositoryIndex> loads = new SingleFlight<>();
+
+	/**
+	 * Default constructor using the default delays and size.
+	 */
+	public RepositoryIndexCache() {
+		this(DEFAULT_REFRESH, DEFAULT_TTL, DEFAULT_MAX_SIZE, RepositoryIndexStore.newConfiguredStore());
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param refresh
+	 *            Delay before a background refresh of an index, in milliseconds.
+	 * @param ttl
+	 *            Time to live of an index, in milliseconds.
+	 * @param maxSize
+	 *            Maximum amount of cached nodes.
+	 * @param store
+	 *            The snapshot store, may be <code>null</code>.
+	 */
+	public RepositoryIndexCache(final long refresh, final long ttl, final int maxSize,
+			final RepositoryIndexStore store) {
+		this.refresh = refresh;
+		this.cache = new TtlCache<>(ttl, maxSize);
+		this.store = store;
+	}
+
+	/**
+	 * Return the index of the given node.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param url
+	 *            The index URL. A cached snapshot of another URL is ignored.
+	 * @param loader
+	 *            The index loader, receiving the previous snapshot, may be <code>null</code>, and returning the new one
+	 *            or <code>null</code> when the index is not available.
+	 * @return The index or <code>null</code> when not available.
+	 */
+	public RepositoryIndex get(final String node, final String url, final UnaryOperator<RepositoryIndex> loader) {
+		final RepositoryIndex index = Optional.ofNullable(cache.get(node))
+				.orElseGet(() -> started.add(node) ? restore(node) : null);
+		if (index == null || !url.equals(index.getUrl())) {
+			return load(node, url, null, loader);
+		}
+		if (System.currentTimeMillis() - index.getTimestamp() > refresh && refreshing.add(node)) {
+			refresher.execute(() -> {
+				try {
+					load(node, url, index, loader);
+				} catch (final RuntimeException e) {
+					log.warn("Unable to refresh the index of node {}", node, e);
+				} finally {
+					refreshing.remove(node);
+				}
+			});
+		}
+		return index;
+	}
+
+	/**
+	 * Return the cached index of the given node only when it is up to date, without loading it.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param url
+	 *            The index URL. A cached snapshot of another URL is ignored.
+	 * @return The index synchronized within the refresh delay, or <code>null</code>.
+	 */
+	public RepositoryIndex getFresh(final String node, final String url) {
+		final RepositoryIndex index = cache.get(node);
+		if (index == null || !url.equals(index.getUrl())
+				|| System.currentTimeMillis() - index.getTimestamp() > refresh) {
+			return null;
+		}
+		return index;
+	}
+
+	/**
+	 * Restore the snapshot of a node on a cold start. A restored index is served at once, and is reconciled as any
+	 * stale index.
+	 */
+	private RepositoryIndex restore(final String node) {
+		final RepositoryIndex index = store == null ? null : store.load(node);
+		if (index != null) {
+			cache.put(node, index);
+			bases.putIfAbsent(node, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Load the index of a node. Concurrent loads of the same node and URL share a single download.
+	 */
+	private RepositoryIndex load(final String node, final String url, final RepositoryIndex previous,
+			final UnaryOperator<RepositoryIndex> loader) {
+		return loads.execute(node + "|" + url, () -> {
+			final RepositoryIndex index = loader.apply(previous);
+			if (index != null) {
+				cache.put(node, index);
+				final RepositoryIndex base = bases.put(node, index);
+				if (base != null && index.getNames() != base.getNames()) {
+					changes.publish(node, base, index);
+				}
+				if (store != null && (previous == null || index.getNames() != previous.getNames())) {
+					// Snapshot the new content
+					refresher.execute(() -> store.save(node, index));
+				}
+			}
+			return index;
+		});
+	}
+
+	/**
+	 * Evict the index of the given node, and delete its on-disk snapshot so that it is not restored instead of a
+	 * reload.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 */
+	public void invalidate(final String node) {
+		started.add(node);
+		cache.remove(node);
+		if (store != null) {
+			store.delete(node);
+		}
+	}
+
+	/**
+	 * Stop the background refreshes. The pending snapshots are still saved.
+	 */
+	public void shutdown() {
+		refresher.shutdown();
+	}
+}
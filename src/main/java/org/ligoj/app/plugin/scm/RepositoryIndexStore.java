@@ -0,0 +1,189 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Binary snapshots of the repository indexes in a local directory, one file per node. A snapshot is read through a
+ * buffered stream closed once restored, so the file can be replaced or deleted at once, and is then reconciled with
+ * the SCM server as any stale index.
+ */
+@Slf4j
+public class RepositoryIndexStore {
+
+	/**
+	 * System property of the snapshot directory. When undefined, the "scm-index" directory of the Ligoj home
+	 * directory is used, if defined.
+	 */
+	public static final String DIRECTORY_PROPERTY = "ligoj.scm.index.directory";
+
+	/**
+	 * File format identifier.
+	 */
+	private static final int MAGIC = 0x53434d49;
+
+	/**
+	 * File format version.
+	 */
+	private static final int VERSION = 1;
+
+	private final Path directory;
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param directory
+	 *            The snapshot directory.
+	 */
+	public RepositoryIndexStore(final Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return the store of the configured directory.
+	 *
+	 * @return The configured store, or <code>null</code> when no directory is configured.
+	 */
+	public static RepositoryIndexStore newConfiguredStore() {
+		final String home = System.getProperty("ligoj.home");
+		final String directory = System.getProperty(DIRECTORY_PROPERTY,
+				home == null ? null : Paths.get(home, "scm-index").toString());
+		return directory == null ? null : new RepositoryIndexStore(Paths.get(directory));
+	}
+
+	private Path toFile(final String node) {
+		return directory.resolve(DigestUtils.sha256Hex(node) + ".idx");
+	}
+
+	/**
+	 * Save the snapshot of a node. Failures are only logged.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @param index
+	 *            The index to save.
+	 */
+	public void save(final String node, final RepositoryIndex index) {
+		final Path file = toFile(node);
+		try {
+			Files.createDirectories(directory);
+			final Path tmp = Files.createTempFile(directory, "index", ".tmp");
+			try (OutputStream output = Files.newOutputStream(tmp);
+					DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output))) {
+				data.writeInt(MAGIC);
+				data.writeInt(VERSION);
+				write(data, node);
+				write(data, index.getUrl());
+				write(data, index.getEtag());
+				write(data, index.getLastModified());
+				data.writeLong(index.getTimestamp());
+				data.writeInt(index.getNames().size());
+				for (final String name : index.getNames()) {
+					write(data, name);
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			log.warn("Unable to save the index snapshot of node {} in {}", node, file, e);
+		}
+	}
+
+	/**
+	 * Restore the snapshot of a node.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 * @return The restored index, or <code>null</code> when there is no valid snapshot.
+	 */
+	public RepositoryIndex load(final String node) {
+		final Path file = toFile(node);
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (InputStream input = Files.newInputStream(file);
+				DataInputStream data = new DataInputStream(new BufferedInputStream(input))) {
+			final long limit = Files.size(file);
+			if (data.readInt() != MAGIC || data.readInt() != VERSION || !node.equals(read(data, limit))) {
+				return null;
+			}
+			final String url = read(data, limit);
+			final String etag = read(data, limit);
+			final String lastModified = read(data, limit);
+			final long timestamp = data.readLong();
+			final int size = data.readInt();
+			if (size < 0 || size > limit) {
+				throw new IOException("Invalid name count " + size);
+			}
+			final List<String> names = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				names.add(read(data, limit));
+			}
+			return RepositoryIndex.restore(url, names, etag, lastModified, timestamp);
+		} catch (final IOException | RuntimeException e) {
+			log.warn("Unable to restore the index snapshot of node {} from {}", node, file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Delete the snapshot of a node. Failures are only logged.
+	 *
+	 * @param node
+	 *            The node identifier.
+	 */
+	public void delete(final String node) {
+		final Path file = toFile(node);
+		try {
+			Files.deleteIfExists(file);
+		} catch (final IOException e) {
+			log.warn("Unable to delete the index snapshot of node {} in {}", node, file, e);
+		}
+	}
+
+	/**
+	 * Write a nullable string: its UTF-8 length, or <code>-1</code>, then its bytes.
+	 */
+	private void write(final DataOutputStream data, final String value) throws IOException {
+		if (value == null) {
+			data.writeInt(-1);
+		} else {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+	}
+
+	/**
+	 * Read a nullable string written by {@link #write(DataOutputStream, String)}.
+	 */
+	private String read(final DataInputStream data, final long limit) throws IOException {
+		final int length = data.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0 || length > limit) {
+			// Corrupted snapshot, do not allocate a wrong length
+			throw new IOException("Invalid string length " + length);
+		}
+		final byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		return StringUtils.toEncodedString(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,35 @@
+package org.ligoj.app.plugin.scm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Compact metrics of a repository, as replied by the metadata script of the proxy agent.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RepositoryMetadata {
+
+	/**
+	 * The repository size, in bytes.
+	 */
+	private Long size;
+
+	/**
+	 * The date of the last commit, in milliseconds since the epoch.
+	 */
+	private Long lastCommit;
+
+	/**
+	 * The amount of branches.
+	 */
+	private Integer branches;
+
+	/**
+	 * The collection time stamp.
+	 */
+	private long collected;
+}
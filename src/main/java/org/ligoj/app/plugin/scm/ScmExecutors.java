@@ -0,0 +1,168 @@
+package org.ligoj.app.plugin.scm;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Factory of the executors of the blocking SCM and proxy agent calls. When the "ligoj.scm.virtual-threads" system
+ * property is <code>true</code> and the runtime supports it, the calls run on virtual threads, and the executors
+ * without explicit bound create a thread per task. Otherwise, they run on daemon platform threads.
+ */
+@Slf4j
+public final class ScmExecutors {
+
+	/**
+	 * System property enabling the virtual threads.
+	 */
+	public static final String VIRTUAL_PROPERTY = "ligoj.scm.virtual-threads";
+
+	/**
+	 * System property of the maximal amount of concurrent calls per node.
+	 */
+	public static final String NODE_CONCURRENCY_PROPERTY = "ligoj.scm.node-concurrency";
+
+	/**
+	 * Default maximal amount of concurrent calls per node.
+	 */
+	public static final int DEFAULT_NODE_CONCURRENCY = 64;
+
+	/**
+	 * <code>Thread.ofVirtual()</code>, <code>null</code> when not supported by the runtime.
+	 */
+	private static final Method OF_VIRTUAL = getMethod(Thread.class, "ofVirtual");
+
+	/**
+	 * Indicates the virtual threads are used.
+	 */
+	private static final boolean VIRTUAL = Boolean.getBoolean(VIRTUAL_PROPERTY) && OF_VIRTUAL != null;
+
+	static {
+		if (Boolean.getBoolean(VIRTUAL_PROPERTY) && !VIRTUAL) {
+			log.warn("Virtual threads are not supported by this runtime, platform threads are used");
+		}
+	}
+
+	private ScmExecutors() {
+		// Factory class
+	}
+
+	private static Method getMethod(final Class<?> type, final String name, final Class<?>... parameters) {
+		try {
+			return type.getMethod(name, parameters);
+		} catch (final NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Indicates the virtual threads are used.
+	 *
+	 * @return <code>true</code> when the virtual threads are enabled and supported.
+	 */
+	public static boolean isVirtual() {
+		return VIRTUAL;
+	}
+
+	/**
+	 * Return the maximal amount of concurrent calls per node.
+	 *
+	 * @return The configured amount of concurrent calls per node.
+	 */
+	public static int getNodeConcurrency() {
+		return Integer.getInteger(NODE_CONCURRENCY_PROPERTY, DEFAULT_NODE_CONCURRENCY);
+	}
+
+	/**
+	 * Return a thread factory of the current mode: virtual threads, or daemon platform threads. The threads are named
+	 * after the prefix and a sequence number, such as "scm-status-0".
+	 *
+	 * @param name
+	 *            The thread name prefix.
+	 * @return The thread factory.
+	 */
+	public static ThreadFactory newThreadFactory(final String name) {
+		if (VIRTUAL) {
+			try {
+				final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+				final Object named = builder.getMethod("name", String.class, long.class)
+						.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+				return (ThreadFactory) builder.getMethod("factory").invoke(named);
+			} catch (final ReflectiveOperationException e) {
+				throw new IllegalStateException("Unable to create the virtual thread factory", e);
+			}
+		}
+		final AtomicInteger sequence = new AtomicInteger();
+		return r -> {
+			final Thread thread = new Thread(r, name + "-" + sequence.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Return an executor of the current mode: a new virtual thread per task, or a fixed pool of daemon platform
+	 * threads.
+	 *
+	 * @param name
+	 *            The thread name prefix.
+	 * @param threads
+	 *            The amount of platform threads. Ignored with the virtual threads.
+	 * @return The executor.
+	 */
+	public static ExecutorService newExecutor(final String name, final int threads) {
+		if (VIRTUAL) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+						.invoke(null, newThreadFactory(name));
+			} catch (final ReflectiveOperationException e) {
+				throw new IllegalStateException("Unable to create the virtual thread executor", e);
+			}
+		}
+		return Executors.newFixedThreadPool(threads, newThreadFactory(name));
+	}
+
+	/**
+	 * Execute the tasks concurrently and wait for all of them. The tasks are bound to the caller: when a task fails
+	 * or when the caller is interrupted, the other tasks are cancelled.
+	 *
+	 * @param executor
+	 *            The executor of the tasks.
+	 * @param tasks
+	 *            The tasks by identifier.
+	 * @param <K>
+	 *            The identifier type.
+	 * @param <V>
+	 *            The result type.
+	 * @return The results by identifier, in the given order.
+	 * @throws InterruptedException
+	 *             When interrupted while waiting for the tasks.
+	 */
+	public static <K, V> Map<K, V> forkJoin(final ExecutorService executor, final Map<K, Callable<V>> tasks)
+			throws InterruptedException {
+		final Map<K, Future<V>> futures = new LinkedHashMap<>();
+		tasks.forEach((id, task) -> futures.put(id, executor.submit(task)));
+		final Map<K, V> results = new LinkedHashMap<>();
+		try {
+			for (final Map.Entry<K, Future<V>> future : futures.entrySet()) {
+				results.put(future.getKey(), future.getValue().get());
+			}
+			return results;
+		} catch (final ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+					: new IllegalStateException(e.getCause());
+		} finally {
+			// No-op for the completed tasks
+			futures.values().forEach(f -> f.cancel(true));
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+/**
+ * Metrics of the outbound SCM, proxy agent and IAM calls of a plug-in.
+ */
+public class ScmMetrics {
+
+	/**
+	 * Timer of the outbound calls, tagged by plug-in, node, operation and outcome.
+	 */
+	public static final String CALL = "scm.call";
+
+	/**
+	 * Counter of the proxy agent exit codes, tagged by plug-in, node, operation and exit code.
+	 */
+	public static final String EXIT = "scm.proxy.exit";
+
+	/**
+	 * Counter of the cache hits, tagged by plug-in and cache.
+	 */
+	public static final String CACHE_HITS = "scm.cache.hits";
+
+	/**
+	 * Counter of the cache misses, tagged by plug-in and cache.
+	 */
+	public static final String CACHE_MISSES = "scm.cache.misses";
+
+	/**
+	 * Outcome of a successful call.
+	 */
+	public static final String SUCCESS = "success";
+
+	/**
+	 * Outcome of a failed call.
+	 */
+	public static final String FAILURE = "failure";
+
+	/**
+	 * Exit tag of a proxy agent reply that is not an exit code.
+	 */
+	public static final String INVALID = "invalid";
+
+	/**
+	 * Highest exit code of a script.
+	 */
+	private static final int MAX_EXIT_CODE = 255;
+
+	@Getter
+	private final MeterRegistry registry;
+
+	private final String plugin;
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param registry
+	 *            The meter registry.
+	 * @param plugin
+	 *            The plug-in key.
+	 */
+	public ScmMetrics(final MeterRegistry registry, final String plugin) {
+		this.registry = registry;
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Start timing a call.
+	 *
+	 * @return The started sample.
+	 */
+	public Timer.Sample start() {
+		return Timer.start(registry);
+	}
+
+	/**
+	 * Stop timing a call.
+	 *
+	 * @param sample
+	 *            The sample returned by {@link #start()}.
+	 * @param node
+	 *            The node tag, the node identifier.
+	 * @param operation
+	 *            The operation tag.
+	 * @param outcome
+	 *            The outcome tag.
+	 */
+	public void stop(final Timer.Sample sample, final String node, final String operation, final String outcome) {
+		sample.stop(Timer.builder(CALL).tags("plugin", plugin, "node", node, "operation", operation, "outcome", outcome)
+				.publishPercentileHistogram().register(registry));
+	}
+
+	/**
+	 * Time a call, failed when an exception is thrown.
+	 *
+	 * @param node
+	 *            The node tag, the node identifier.
+	 * @param operation
+	 *            The operation tag.
+	 * @param call
+	 *            The timed call.
+	 * @param <T>
+	 *            The call result type.
+	 * @return The call result.
+	 */
+	public <T> T time(final String node, final String operation, final Supplier<T> call) {
+		final Timer.Sample sample = start();
+		String outcome = FAILURE;
+		try {
+			final T result = call.get();
+			outcome = SUCCESS;
+			return result;
+		} finally {
+			stop(sample, node, operation, outcome);
+		}
+	}
+
+	/**
+	 * Count an exit code of the proxy agent.
+	 *
+	 * @param node
+	 *            The node tag, the node identifier.
+	 * @param operation
+	 *            The operation tag.
+	 * @param reply
+	 *            The proxy agent reply. Only an exit code, from <code>-1</code> to {@value #MAX_EXIT_CODE}, is used
+	 *            as tag, any other reply is counted as {@value #INVALID}.
+	 */
+	public void exitCode(final String node, final String operation, final String reply) {
+		registry.counter(EXIT, "plugin", plugin, "node", node, "operation", operation, "exit", toExitTag(reply))
+				.increment();
+	}
+
+	/**
+	 * Return the bounded exit tag of a proxy agent reply.
+	 */
+	private static String toExitTag(final String reply) {
+		final int exitCode = NumberUtils.toInt(StringUtils.trimToEmpty(reply), Integer.MIN_VALUE);
+		return exitCode < -1 || exitCode > MAX_EXIT_CODE ? INVALID : String.valueOf(exitCode);
+	}
+
+	/**
+	 * Expose the hits and misses of a cache.
+	 *
+	 * @param cache
+	 *            The cache tag.
+	 * @param source
+	 *            The monitored cache.
+	 * @param hits
+	 *            The hits function.
+	 * @param misses
+	 *            The misses function.
+	 * @param <T>
+	 *            The monitored cache type.
+	 */
+	public <T> void monitor(final String cache, final T source, final ToDoubleFunction<T> hits,
+			final ToDoubleFunction<T> misses) {
+		FunctionCounter.builder(CACHE_HITS, source, hits).tags("plugin", plugin, "cache", cache).register(registry);
+		FunctionCounter.builder(CACHE_MISSES, source, misses).tags("plugin", plugin, "cache", cache)
+				.register(registry);
+	}
+}
@@ -1,18 +1,50 @@
 package org.ligoj.app.plugin.scm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.dao.NodeRepository;
 import org.ligoj.app.model.Node;
 import org.ligoj.app.model.Parameter;
+import org.ligoj.app.resource.NormalizeFormat;
 import org.ligoj.app.resource.plugin.AbstractServicePlugin;
+import org.ligoj.bootstrap.core.NamedBean;
+import org.ligoj.bootstrap.core.security.SecurityHelper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * The Source Code Management service.
  */
 @Component
-public class ScmResource extends AbstractServicePlugin {
+@Path(ScmResource.SERVICE_URL)
+@Produces(MediaType.APPLICATION_JSON)
+@Slf4j
+public class ScmResource extends AbstractServicePlugin implements DisposableBean {
 
 	/**
 	 * Plug-in key.
@@ -29,6 +61,33 @@ public class ScmResource extends AbstractServicePlugin {
 	 */
 	public static final String PARAMETER_URL = SERVICE_KEY + ":url";
 
+	/**
+	 * Maximal time to wait for the nodes during a federated search, in seconds.
+	 */
+	public static final int MAX_SEARCH_TIMEOUT = 30;
+
+	/**
+	 * Maximal amount of repositories returned by a federated search.
+	 */
+	public static final int MAX_MATCHES = 50;
+
+	/**
+	 * Executor of the node searches.
+	 */
+	private final ExecutorService searches = ScmExecutors.newExecutor("scm-federated-search", 16);
+
+	/**
+	 * The index based SCM implementations.
+	 */
+	@Autowired(required = false)
+	protected List<AbstractIndexBasedPluginResource> plugins = Collections.emptyList();
+
+	@Autowired
+	protected NodeRepository nodeRepository;
+
+	@Autowired
+	protected SecurityHelper securityHelper;
+
 	@Override
 	public String getKey() {
 		return SERVICE_KEY;
@@ -38,4 +97,77 @@ public class ScmResource extends AbstractServicePlugin {
 	public List<Class<?>> getInstalledEntities() {
 		return Arrays.asList(Node.class, Parameter.class);
 	}
+
+	/**
+	 * Find the repositories matching to the given criteria in the nodes of all SCM implementations visible by the
+	 * current user. The nodes are searched in parallel, and the ones not answering before the deadline are reported
+	 * as incomplete instead of delaying the result. Look into name only.
+	 * 
+	 * @param criteria
+	 *            the search criteria.
+	 * @param timeout
+	 *            the maximal time to wait for the nodes in seconds, bounded by {@value #MAX_SEARCH_TIMEOUT}.
+	 * @return the merged repositories, exact matches first, then prefix matches, then the other ones.
+	 */
+	@GET
+	@Path("search/{criteria}")
+	public FederatedSearch findAllByName(@PathParam("criteria") final String criteria,
+			@QueryParam("timeout") @DefaultValue("5") final int timeout) {
+		final long deadline = System.nanoTime()
+				+ TimeUnit.SECONDS.toNanos(Math.max(1, Math.min(timeout, MAX_SEARCH_TIMEOUT)));
+
+		// Fan out to the visible nodes of each implementation, fetched with a single query
+		final List<String> nodes = nodeRepository
+				.findAllVisible(securityHelper.getLogin(), "", SERVICE_KEY, Pageable.unpaged()).getContent()
+				.stream().map(Node::getId).collect(Collectors.toList());
+		final Map<String, Future<List<NamedBean<String>>>> pending = new LinkedHashMap<>();
+		plugins.forEach(plugin -> {
+			final String prefix = plugin.getKey() + ":";
+			nodes.stream().filter(node -> node.startsWith(prefix))
+					.forEach(node -> pending.put(node, searches.submit(() -> plugin.findAllByName(node, criteria))));
+		});
+
+		// Gather the answers received before the deadline
+		final List<NodeMatch> matches = new ArrayList<>();
+		final List<String> incomplete = new ArrayList<>();
+		pending.forEach((node, search) -> {
+			try {
+				search.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+						.forEach(r -> matches.add(new NodeMatch(node, r.getId(), r.getName())));
+			} catch (final TimeoutException e) {
+				search.cancel(true);
+				incomplete.add(node);
+			} catch (final ExecutionException e) {
+				log.info("Search of repositories '{}' failed in node {}", criteria, node, e.getCause());
+				incomplete.add(node);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				search.cancel(true);
+				incomplete.add(node);
+			}
+		});
+		return new FederatedSearch(rank(matches, criteria), incomplete);
+	}
+
+	/**
+	 * Stop the running node searches.
+	 */
+	@Override
+	public void destroy() {
+		searches.shutdownNow();
+	}
+
+	/**
+	 * Order the matches by relevance, then by name, then by node, and keep the best ones.
+	 */
+	private List<NodeMatch> rank(final List<NodeMatch> matches, final String criteria) {
+		final NormalizeFormat format = new NormalizeFormat();
+		final String formatCriteria = format.format(StringUtils.defaultString(criteria));
+		final Map<NodeMatch, String> normalized = matches.stream()
+				.collect(Collectors.toMap(m -> m, m -> format.format(m.getName()), (a, b) -> a));
+		return matches.stream()
+				.sorted(Comparator.<NodeMatch>comparingInt(m -> RepositoryIndex.rank(normalized.get(m), formatCriteria))
+						.thenComparing(normalized::get).thenComparing(NodeMatch::getNode))
+				.limit(MAX_MATCHES).collect(Collectors.toList());
+	}
 }
@@ -0,0 +1,59 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent executions of a same key: callers arriving while an execution is in flight wait for it and
+ * share its result, or its failure.
+ *
+ * @param <K>
+ *            The key type.
+ * @param <V>
+ *            The result type.
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Execute the supplier, or join the in flight execution of the same key.
+	 *
+	 * @param key
+	 *            The execution key.
+	 * @param supplier
+	 *            The execution.
+	 * @return The shared result.
+	 */
+	public V execute(final K key, final Supplier<V> supplier) {
+		final CompletableFuture<V> created = new CompletableFuture<>();
+		final CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+		if (existing != null) {
+			return join(existing);
+		}
+		try {
+			final V result = supplier.get();
+			created.complete(result);
+			return result;
+		} catch (final RuntimeException | Error e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, created);
+		}
+	}
+
+	private V join(final CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
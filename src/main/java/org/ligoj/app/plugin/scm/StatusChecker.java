@@ -0,0 +1,205 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+/**
+ * Executes the status checks with a timeout and keeps their results, successful or not, for a short window. Several
+ * checks can be executed concurrently, and the concurrent checks of the same key share a single execution. The
+ * requests sent by a check are bounded by its deadline, see {@link #getTimeout(int)}, so a hung server does not hold
+ * a worker beyond the timeout.
+ */
+public class StatusChecker {
+
+	/**
+	 * Default timeout of a check, in milliseconds.
+	 */
+	public static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(15);
+
+	/**
+	 * Default retention of a check result, in milliseconds.
+	 */
+	public static final long DEFAULT_RETENTION = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * Default amount of concurrent checks.
+	 */
+	public static final int DEFAULT_WORKERS = 16;
+
+	/**
+	 * Maximum amount of retained results.
+	 */
+	private static final int MAX_RESULTS = 5000;
+
+	/**
+	 * The deadline of the check running in the current worker, in milliseconds.
+	 */
+	private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+	private final long timeout;
+
+	/**
+	 * Executes the checks.
+	 */
+	private final ExecutorService workers;
+
+	/**
+	 * Waits for the checks of a sweep.
+	 */
+	private final ExecutorService fanOut;
+
+	/**
+	 * Check results: the returned value or the thrown {@link RuntimeException}.
+	 */
+	private final TtlCache<String, Object> results;
+
+	/**
+	 * In flight checks.
+	 */
+	private final SingleFlight<String, Object> inFlight = new SingleFlight<>();
+
+	/**
+	 * Default constructor using the default timeout, retention and workers.
+	 */
+	public StatusChecker() {
+		this(DEFAULT_TIMEOUT, DEFAULT_RETENTION, DEFAULT_WORKERS);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param timeout
+	 *            Timeout of a check, in milliseconds.
+	 * @param retention
+	 *            Retention of a check result, in milliseconds.
+	 * @param workers
+	 *            Amount of concurrent checks, ignored with the virtual threads.
+	 */
+	public StatusChecker(final long timeout, final long retention, final int workers) {
+		this.timeout = timeout;
+		this.workers = ScmExecutors.newExecutor("scm-status", workers);
+		this.fanOut = ScmExecutors.newExecutor("scm-status-sweep", workers);
+		this.results = new TtlCache<>(retention, MAX_RESULTS);
+	}
+
+	/**
+	 * Execute a check, or return the recent result of the same key.
+	 *
+	 * @param key
+	 *            The check key, such as the checked URL.
+	 * @param check
+	 *            The check to execute.
+	 * @param <T>
+	 *            The check result type.
+	 * @return The check result.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T check(final String key, final Supplier<T> check) {
+		Object result = results.get(key);
+		if (result == null) {
+			// A concurrent check of the same key may have completed since the previous lookup
+			result = inFlight.execute(key,
+					() -> Optional.ofNullable(results.get(key)).orElseGet(() -> execute(key, check)));
+		}
+		if (result instanceof RuntimeException) {
+			throw (RuntimeException) result;
+		}
+		return (T) result;
+	}
+
+	/**
+	 * Execute a check in a worker, and keep its result unless it has not been started before the timeout.
+	 */
+	private Object execute(final String key, final Supplier<?> check) {
+		final AtomicBoolean started = new AtomicBoolean();
+		final Future<?> future = workers.submit(() -> {
+			started.set(true);
+			DEADLINE.set(System.currentTimeMillis() + timeout);
+			try {
+				return check.get();
+			} finally {
+				DEADLINE.remove();
+			}
+		});
+		Object result;
+		try {
+			result = future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (final ExecutionException e) {
+			result = e.getCause() instanceof RuntimeException ? e.getCause()
+					: new BusinessException("scm-status-failure", key);
+		} catch (final TimeoutException e) {
+			future.cancel(true);
+			if (!started.get()) {
+				// All workers are busy, this key is not known to be down
+				return new BusinessException("scm-status-timeout", key);
+			}
+			result = new BusinessException("scm-status-timeout", key);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new BusinessException("scm-status-timeout", key);
+		}
+		results.put(key, result);
+		return result;
+	}
+
+	/**
+	 * Return the timeout of a request sent by the current thread, bounded by the remaining time of the running
+	 * check.
+	 *
+	 * @param timeout
+	 *            The timeout of the request, in milliseconds.
+	 * @return The given timeout when no check is running in the current thread, or the remaining time of the check
+	 *         when lower, at least <code>1</code>.
+	 */
+	public static int getTimeout(final int timeout) {
+		final Long deadline = DEADLINE.get();
+		return deadline == null ? timeout
+				: (int) Math.max(1, Math.min(timeout, deadline - System.currentTimeMillis()));
+	}
+
+	/**
+	 * Execute several checks concurrently. A check is successful when it returns <code>true</code> without
+	 * exception.
+	 *
+	 * @param checks
+	 *            The checks to execute by identifier, usually relying on {@link #check(String, Supplier)}.
+	 * @param <K>
+	 *            The identifier type.
+	 * @return The check status of each identifier, in the given order.
+	 */
+	public <K> Map<K, Boolean> checkAll(final Map<K, Supplier<Boolean>> checks) {
+		final Map<K, Callable<Boolean>> tasks = new LinkedHashMap<>();
+		checks.forEach((id, check) -> tasks.put(id, () -> {
+			try {
+				return Boolean.TRUE.equals(check.get());
+			} catch (final RuntimeException e) {
+				return Boolean.FALSE;
+			}
+		}));
+		try {
+			return ScmExecutors.forkJoin(fanOut, tasks);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("scm-status-timeout", "sweep");
+		}
+	}
+
+	/**
+	 * Stop the running checks.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+		fanOut.shutdownNow();
+	}
+}
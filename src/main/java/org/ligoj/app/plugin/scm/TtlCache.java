@@ -0,0 +1,162 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A small bounded cache with a time to live. Least recently used entries are evicted when the maximum size is
+ * reached.
+ *
+ * @param <K>
+ *            The key type.
+ * @param <V>
+ *            The value type.
+ */
+public class TtlCache<K, V> {
+
+	/**
+	 * Time to live of an entry, in milliseconds.
+	 */
+	private final long ttl;
+
+	/**
+	 * The current time provider, in milliseconds.
+	 */
+	private final LongSupplier clock;
+
+	/**
+	 * Access ordered entries.
+	 */
+	private final Map<K, Entry<V>> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * A cached value and its creation time.
+	 *
+	 * @param <V>
+	 *            The value type.
+	 */
+	private static class Entry<V> {
+		private final V value;
+		private final long timestamp;
+
+		private Entry(final V value, final long timestamp) {
+			this.value = value;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Constructor using the system clock.
+	 *
+	 * @param ttl
+	 *            Time to live of an entry, in milliseconds.
+	 * @param maxSize
+	 *            The maximum amount of entries.
+	 */
+	public TtlCache(final long ttl, final int maxSize) {
+		this(ttl, maxSize, System::currentTimeMillis);
+	}
+
+	/**
+	 * Full constructor.
+	 *
+	 * @param ttl
+	 *            Time to live of an entry, in milliseconds.
+	 * @param maxSize
+	 *            The maximum amount of entries.
+	 * @param clock
+	 *            The current time provider, in milliseconds.
+	 */
+	public TtlCache(final long ttl, final int maxSize, final LongSupplier clock) {
+		this.ttl = ttl;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Return the value associated to the given key.
+	 *
+	 * @param key
+	 *            The entry key.
+	 * @return The cached value or <code>null</code> when absent or expired.
+	 */
+	public synchronized V get(final K key) {
+		final Entry<V> entry = entries.get(key);
+		if (entry == null || clock.getAsLong() - entry.timestamp > ttl) {
+			entries.remove(key);
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * Associate a value to the given key and reset its expiration.
+	 *
+	 * @param key
+	 *            The entry key.
+	 * @param value
+	 *            The value to cache.
+	 */
+	public synchronized void put(final K key, final V value) {
+		entries.put(key, new Entry<>(value, clock.getAsLong()));
+	}
+
+	/**
+	 * Remove the given key.
+	 *
+	 * @param key
+	 *            The entry key.
+	 */
+	public synchronized void remove(final K key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the amount of entries, including the expired ones not yet evicted.
+	 *
+	 * @return The amount of entries.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return the amount of successful lookups.
+	 *
+	 * @return The amount of successful lookups.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Return the amount of lookups without valid entry.
+	 *
+	 * @return The amount of lookups without valid entry.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+}
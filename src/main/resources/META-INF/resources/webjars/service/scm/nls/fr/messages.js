@@ -4,10 +4,12 @@ define({
 	'service:scm:project': 'Projet',
 	'service:scm:ou': 'Organisation',
 	'service:scm:ldapgroups': 'Groupe(s) LDAP',
-	'service:scm:url-proxy-agent': 'URL de l\'agent proxy',
+	'service:scm:url-proxy-agent': 'URLs des agents proxy, séparées par des virgules',
 	'service:scm:url': 'Url de base',
 	'service:scm:user': 'Utilisateur',
 	'service:scm:password': 'Mot de passe',
 	'service:scm:index': 'Index',
+	'service:scm:index-format': 'Format de l\'index',
+	'service:scm:creation-rate': 'Nombre maximal de créations par seconde et par agent proxy',
 	'service:scm:secret-key': 'Clé secrète',
 });
@@ -5,11 +5,13 @@ define({
 		'service:scm:project': 'Project',
 		'service:scm:ou': 'Organization',
 		'service:scm:ldapgroups': 'LDAP groups',
-		'service:scm:url-proxy-agent': 'Proxy agent URL',
+		'service:scm:url-proxy-agent': 'Proxy agent URLs, comma separated',
 		'service:scm:url': 'Base URL',
 		'service:scm:user': 'User',
 		'service:scm:password': 'Password',
 		'service:scm:index': 'Index',
+		'service:scm:index-format': 'Index format',
+		'service:scm:creation-rate': 'Maximal creations per second and per proxy agent',
 		'service:scm:secret-key': 'Secret key',
 		
 	},
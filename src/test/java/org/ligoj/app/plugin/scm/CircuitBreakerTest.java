@@ -0,0 +1,160 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link CircuitBreaker}
+ */
+public class CircuitBreakerTest {
+
+	private final AtomicLong now = new AtomicLong(1000);
+
+	@Test
+	public void executeOpenAndProbe() {
+		final CircuitBreaker breaker = new CircuitBreaker(2, 100, 1000, 5000, now::get);
+		final AtomicInteger counter = new AtomicInteger();
+		Assertions.assertEquals(CircuitBreaker.Outcome.FAILURE,
+				breaker.execute("agent", "create", () -> counter.incrementAndGet() < 0));
+		Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("agent"));
+		Assertions.assertEquals(CircuitBreaker.Outcome.FAILURE,
+				breaker.execute("agent", "create", () -> counter.incrementAndGet() < 0));
+		Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState("agent"));
+		Assertions.assertTrue(breaker.isOpen("agent"));
+
+		// Rejected without execution
+		Assertions.assertEquals(CircuitBreaker.Outcome.REJECTED,
+				breaker.execute("agent", "exists", () -> counter.incrementAndGet() > 0));
+		Assertions.assertEquals(2, counter.get());
+
+		// Other keys are not impacted
+		Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS, breaker.execute("other", "exists", () -> true));
+
+		// Failed probe
+		now.addAndGet(150);
+		Assertions.assertFalse(breaker.isOpen("agent"));
+		Assertions.assertEquals(CircuitBreaker.Outcome.FAILURE,
+				breaker.execute("agent", "exists", () -> counter.incrementAndGet() < 0));
+		Assertions.assertEquals(3, counter.get());
+		Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState("agent"));
+
+		// Successful probe
+		now.addAndGet(150);
+		Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS,
+				breaker.execute("agent", "exists", () -> counter.incrementAndGet() > 0));
+		Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("agent"));
+		Assertions.assertEquals(0, breaker.getStatus("agent").get("failures"));
+		breaker.shutdown();
+	}
+
+	@Test
+	public void executeException() {
+		final CircuitBreaker breaker = new CircuitBreaker(1, 10000, 1000, 5000);
+		Assertions.assertEquals(CircuitBreaker.Outcome.FAILURE, breaker.execute("agent", "create", () -> {
+			throw new IllegalStateException();
+		}));
+		Assertions.assertTrue(breaker.isOpen("agent"));
+	}
+
+	@Test
+	public void executeAdaptiveTimeout() throws InterruptedException {
+		final CircuitBreaker breaker = new CircuitBreaker(5, 10000, 50, 5000, now::get);
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS, breaker.execute("agent", "exists", () -> true));
+		}
+		@SuppressWarnings("unchecked")
+		final Map<String, Long> timeouts = (Map<String, Long>) breaker.getStatus("agent").get("timeouts");
+		Assertions.assertEquals(50, timeouts.get("exists").longValue());
+
+		// Never completing call, interrupted after the adapted timeout, and completed afterwards
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+		final AtomicReference<CircuitBreaker.Outcome> completion = new AtomicReference<>();
+		Assertions.assertEquals(CircuitBreaker.Outcome.TIMEOUT, breaker.execute("agent", "exists", () -> {
+			try {
+				new CountDownLatch(1).await();
+			} catch (final InterruptedException e) {
+				interrupted.countDown();
+			}
+			return true;
+		}, true, o -> {
+			completion.set(o);
+			completed.countDown();
+		}));
+		Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+		Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS, completion.get());
+		Assertions.assertEquals(1, breaker.getStatus("agent").get("failures"));
+		breaker.shutdown();
+	}
+
+	@Test
+	public void executeNotTimed() {
+		final CircuitBreaker breaker = new CircuitBreaker(5, 10000, 50, 5000, now::get);
+		final Thread caller = Thread.currentThread();
+
+		// Executed by the caller, without timeout
+		Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS,
+				breaker.execute("agent", "create", () -> Thread.currentThread() == caller, false));
+		Assertions.assertEquals(CircuitBreaker.Outcome.FAILURE,
+				breaker.execute("agent", "create", () -> Thread.currentThread() != caller, false));
+		Assertions.assertEquals(1, breaker.getStatus("agent").get("failures"));
+	}
+
+	@Test
+	public void executeSaturated() throws InterruptedException {
+		final CircuitBreaker breaker = new CircuitBreaker(CircuitBreaker.MAX_CALLS + 1, 10000, 50, 50);
+		final CountDownLatch running = new CountDownLatch(CircuitBreaker.MAX_CALLS);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(CircuitBreaker.MAX_CALLS);
+		try {
+			// Timed out calls still running
+			for (int i = 0; i < CircuitBreaker.MAX_CALLS; i++) {
+				breaker.execute("busy", "exists", () -> {
+					running.countDown();
+					while (release.getCount() > 0) {
+						try {
+							release.await();
+						} catch (final InterruptedException e) {
+							// Ignore the interruption, as a blocked I/O would
+						}
+					}
+					return true;
+				}, true, o -> completed.countDown());
+			}
+			Assertions.assertTrue(running.await(5, TimeUnit.SECONDS));
+
+			// Rejected locally, not counted as a failure
+			final AtomicReference<CircuitBreaker.Outcome> completion = new AtomicReference<>();
+			Assertions.assertEquals(CircuitBreaker.Outcome.REJECTED,
+					breaker.execute("busy", "exists", () -> true, true, completion::set));
+			Assertions.assertEquals(CircuitBreaker.Outcome.REJECTED, completion.get());
+			Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("busy"));
+			Assertions.assertEquals(CircuitBreaker.MAX_CALLS, breaker.getStatus("busy").get("failures"));
+
+			// The other keys are not impacted
+			Assertions.assertEquals(CircuitBreaker.Outcome.SUCCESS, breaker.execute("agent", "exists", () -> true));
+			Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("agent"));
+			Assertions.assertEquals(0, breaker.getStatus("agent").get("failures"));
+		} finally {
+			release.countDown();
+		}
+		Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+		breaker.shutdown();
+	}
+
+	@Test
+	public void getStatusUnknown() {
+		final Map<String, Object> status = new CircuitBreaker().getStatus("agent");
+		Assertions.assertEquals(CircuitBreaker.State.CLOSED, status.get("state"));
+		Assertions.assertEquals(0, status.get("failures"));
+		Assertions.assertFalse(new CircuitBreaker().isOpen("agent"));
+	}
+}
@@ -0,0 +1,51 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link ConcurrencyLimiter}
+ */
+public class ConcurrencyLimiterTest {
+
+	@Test
+	public void execute() throws Exception {
+		final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> limiter.execute("node", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		}));
+		started.await();
+		Assertions.assertEquals(1, limiter.getRunning("node"));
+
+		// Other nodes are not limited
+		Assertions.assertTrue(limiter.execute("other", () -> true));
+
+		// The second call of the same node waits for the first one
+		final CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> limiter.execute("node", () -> false));
+		Thread.sleep(100);
+		Assertions.assertFalse(second.isDone());
+		release.countDown();
+		Assertions.assertTrue(first.get());
+		Assertions.assertFalse(second.get());
+		Assertions.assertEquals(0, limiter.getRunning("node"));
+	}
+
+	@Test
+	public void executeInterrupted() {
+		final ConcurrencyLimiter limiter = new ConcurrencyLimiter(0);
+		Thread.currentThread().interrupt();
+		Assertions.assertFalse(limiter.execute("node", () -> true));
+		Assertions.assertTrue(Thread.interrupted());
+	}
+}
@@ -0,0 +1,79 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+
+/**
+ * Test class of {@link CreationDeduplicator}
+ */
+public class CreationDeduplicatorTest {
+
+	private final CreationDeduplicator creations = new CreationDeduplicator();
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	/**
+	 * The exit code handler of the default create script.
+	 */
+	private final IntConsumer handler = c -> {
+		if (c == -1) {
+			throw new BusinessException("The proxy agent doesn't reply");
+		}
+		if (c != 0) {
+			throw new ValidationJsonException("already-exist");
+		}
+	};
+
+	@Test
+	public void executeRecent() {
+		final String key = CreationDeduplicator.toKey(1, "repo");
+		Assertions.assertEquals("1:repo", key);
+		Assertions.assertEquals(0, creations.execute(key, () -> counter.incrementAndGet() - 1, handler));
+
+		// The retry gets the first result, not "already-exist"
+		Assertions.assertEquals(0, creations.execute(key, () -> 7, handler));
+		Assertions.assertEquals(1, counter.get());
+
+		// Another repository is created
+		Assertions.assertEquals(7, creations.execute(CreationDeduplicator.toKey(1, "other"), () -> 7, handler));
+	}
+
+	@Test
+	public void executeRetryable() {
+		Assertions.assertEquals(-1, creations.execute("1:repo", () -> counter.incrementAndGet() - 2, handler));
+		Assertions.assertEquals(0, creations.execute("1:repo", () -> counter.incrementAndGet() - 2, handler));
+		Assertions.assertEquals(2, counter.get());
+	}
+
+	@Test
+	public void executeInFlight() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> creations.execute("1:repo", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return counter.incrementAndGet() - 1;
+		}, handler));
+		started.await();
+		final CompletableFuture<Integer> second = CompletableFuture
+				.supplyAsync(() -> creations.execute("1:repo", () -> counter.incrementAndGet() + 6, handler));
+
+		// Let the duplicate attach to the in flight creation
+		Thread.sleep(100);
+		release.countDown();
+		Assertions.assertEquals(0, first.get().intValue());
+		Assertions.assertEquals(0, second.get().intValue());
+		Assertions.assertEquals(1, counter.get());
+	}
+}
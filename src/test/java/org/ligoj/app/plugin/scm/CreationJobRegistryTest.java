@@ -0,0 +1,116 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+
+/**
+ * Test class of {@link CreationJobRegistry}
+ */
+public class CreationJobRegistryTest {
+
+	private static final Runnable CREATED = () -> {
+		// Nothing to create
+	};
+
+	@Test
+	public void submit() throws InterruptedException {
+		final CreationJobRegistry registry = new CreationJobRegistry(1, 1);
+		final CreationJob job = registry.submit(1, "junit", () -> {
+			throw new ValidationJsonException("already-exist");
+		});
+		waitFor(job);
+		Assertions.assertSame(job, registry.get(job.getId(), "junit"));
+		Assertions.assertNull(registry.get(job.getId(), "other"));
+		Assertions.assertSame(job, registry.getLast(1, "junit"));
+		Assertions.assertNull(registry.getLast(1, "other"));
+		Assertions.assertNull(registry.getLast(2, "junit"));
+		Assertions.assertEquals(CreationStatus.REJECTED, job.getStatus());
+		Assertions.assertNotNull(job.getMessage());
+		Assertions.assertTrue(job.getCompleted() >= job.getSubmitted());
+	}
+
+	@Test
+	public void submitFailure() throws InterruptedException {
+		final CreationJob job = new CreationJobRegistry().submit(1, "junit", () -> {
+			throw new BusinessException("The proxy agent doesn't reply");
+		});
+		waitFor(job);
+		Assertions.assertEquals(CreationStatus.FAILED, job.getStatus());
+		Assertions.assertEquals("The proxy agent doesn't reply", job.getMessage());
+	}
+
+	@Test
+	public void submitQueueFull() throws InterruptedException {
+		final CreationJobRegistry registry = new CreationJobRegistry(1, 1);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CreationJob running = registry.submit(1, "junit", () -> {
+			try {
+				latch.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		while (running.getStatus() == CreationStatus.QUEUED) {
+			Thread.sleep(10);
+		}
+		registry.submit(2, "junit", CREATED);
+		Assertions.assertThrows(BusinessException.class, () -> registry.submit(3, "junit", CREATED));
+		latch.countDown();
+		waitFor(running);
+		Assertions.assertEquals(CreationStatus.SUCCESS, running.getStatus());
+	}
+
+	@Test
+	public void submitIdempotent() throws InterruptedException {
+		final CreationJobRegistry registry = new CreationJobRegistry();
+		final CreationJob job = registry.submit(1, "junit", "1:repo", CREATED);
+		waitFor(job);
+		Assertions.assertSame(job, registry.submit(1, "junit", "1:repo", CREATED));
+		Assertions.assertNotSame(job, registry.submit(1, "junit", "1:other", CREATED));
+		Assertions.assertNotSame(job, registry.submit(1, "other", "1:repo", CREATED));
+	}
+
+	@Test
+	public void submitIdempotentRetry() throws InterruptedException {
+		final CreationJobRegistry registry = new CreationJobRegistry();
+		final CreationJob job = registry.submit(1, "junit", "1:repo", () -> {
+			throw new BusinessException("The proxy agent doesn't reply");
+		});
+		waitFor(job);
+		final CreationJob retry = registry.submit(1, "junit", "1:repo", CREATED);
+		Assertions.assertNotSame(job, retry);
+		waitFor(retry);
+		Assertions.assertEquals(CreationStatus.SUCCESS, retry.getStatus());
+	}
+
+	@Test
+	public void of() {
+		Assertions.assertEquals(CreationStatus.SUCCESS, CreationStatus.of(null));
+		Assertions.assertEquals(CreationStatus.REJECTED, CreationStatus.of(new ValidationJsonException("Global")));
+		Assertions.assertEquals(CreationStatus.FAILED, CreationStatus.of(new IllegalStateException()));
+		Assertions.assertEquals(CreationStatus.SUCCESS, CreationStatus.of(c -> {
+			// Accepted
+		}, 0));
+		Assertions.assertEquals(CreationStatus.FAILED, CreationStatus.of(c -> {
+			throw new BusinessException("The proxy agent doesn't reply");
+		}, -1));
+		Assertions.assertFalse(CreationStatus.RUNNING.isTerminal());
+		Assertions.assertTrue(CreationStatus.REJECTED.isDefinitive());
+		Assertions.assertFalse(CreationStatus.FAILED.isDefinitive());
+	}
+
+	@Test
+	public void getUnknown() {
+		Assertions.assertNull(new CreationJobRegistry().get("any", "junit"));
+	}
+
+	private void waitFor(final CreationJob job) throws InterruptedException {
+		while (!job.getStatus().isTerminal()) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.resource.plugin.CurlProcessor;
+import org.ligoj.app.resource.plugin.CurlRequest;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * Test class of {@link CurlProcessorPool}
+ */
+public class CurlProcessorPoolTest {
+
+	private final CurlRequest request = new CurlRequest("GET", "http://localhost", null);
+
+	private final Supplier<CurlProcessor> factory = () -> {
+		final CurlProcessor processor = Mockito.mock(CurlProcessor.class);
+		Mockito.when(processor.process(ArgumentMatchers.any(CurlRequest.class))).thenReturn(true);
+		return processor;
+	};
+
+	/**
+	 * Return the processor used by the pool for the given key.
+	 */
+	private CurlProcessor process(final CurlProcessorPool pool, final String key) {
+		final CurlProcessor[] used = new CurlProcessor[1];
+		pool.process(key, () -> used[0] = factory.get(), request);
+		return used[0];
+	}
+
+	@Test
+	public void process() {
+		final CurlProcessorPool pool = new CurlProcessorPool(60000, 10);
+		final CurlProcessor first = process(pool, "a");
+		Assertions.assertNotNull(first);
+
+		// Reused processor
+		Assertions.assertNull(process(pool, "a"));
+		Mockito.verify(first, Mockito.times(2)).process(request);
+		Assertions.assertNotNull(process(pool, "b"));
+	}
+
+	@Test
+	public void processEvictIdle() throws Exception {
+		final CurlProcessorPool pool = new CurlProcessorPool(-1, 10);
+		final CurlProcessor first = process(pool, "a");
+		Assertions.assertNotNull(process(pool, "a"));
+		Mockito.verify(first).close();
+	}
+
+	@Test
+	public void processEvictLeastRecentlyUsed() throws Exception {
+		final CurlProcessorPool pool = new CurlProcessorPool(60000, 1);
+		final CurlProcessor first = process(pool, "a");
+		process(pool, "b");
+		Mockito.verify(first).close();
+	}
+
+	@Test
+	public void processEvictedInUse() throws Exception {
+		final CurlProcessorPool pool = new CurlProcessorPool(60000, 1);
+		final CurlProcessor first = Mockito.mock(CurlProcessor.class);
+		Mockito.when(first.process(request)).thenAnswer(i -> {
+			// Evicted during the request
+			process(pool, "b");
+			Mockito.verify(first, Mockito.never()).close();
+			return true;
+		});
+		Assertions.assertTrue(pool.process("a", () -> first, request));
+
+		// Closed once the request is completed
+		Mockito.verify(first).close();
+	}
+
+	@Test
+	public void processIdleInUse() throws Exception {
+		final CurlProcessorPool pool = new CurlProcessorPool(-1, 10);
+		final CurlProcessor first = Mockito.mock(CurlProcessor.class);
+		Mockito.when(first.process(request)).thenAnswer(i -> {
+			// An idle processor in use is not evicted
+			process(pool, "b");
+			Mockito.verify(first, Mockito.never()).close();
+			return true;
+		});
+		Assertions.assertTrue(pool.process("a", () -> first, request));
+		Mockito.verify(first, Mockito.never()).close();
+	}
+
+	@Test
+	public void clear() throws Exception {
+		final CurlProcessorPool pool = new CurlProcessorPool();
+		final CurlProcessor first = process(pool, "a");
+		pool.clear();
+		Mockito.verify(first).close();
+	}
+}
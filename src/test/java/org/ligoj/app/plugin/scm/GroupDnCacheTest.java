@@ -0,0 +1,34 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.iam.GroupOrg;
+import org.ligoj.app.iam.IGroupRepository;
+import org.mockito.Mockito;
+
+/**
+ * Test class of {@link GroupDnCache}
+ */
+public class GroupDnCacheTest {
+
+	@Test
+	public void getDns() {
+		final IGroupRepository repository = Mockito.mock(IGroupRepository.class);
+		final GroupOrg groupA = Mockito.mock(GroupOrg.class);
+		Mockito.when(groupA.getDn()).thenReturn("cn=a");
+		final GroupOrg groupB = Mockito.mock(GroupOrg.class);
+		Mockito.when(groupB.getDn()).thenReturn("cn=b");
+		Mockito.when(repository.findById("a")).thenReturn(groupA);
+		Mockito.when(repository.findById("b")).thenReturn(groupB);
+
+		final GroupDnCache cache = new GroupDnCache();
+		Assertions.assertEquals("cn=a cn=b", cache.getDns(repository, Arrays.asList("a", " b", "a")));
+		Assertions.assertEquals("cn=b", cache.getDns(repository, Arrays.asList("b")));
+		Mockito.verify(repository, Mockito.times(1)).findById("a");
+		Mockito.verify(repository, Mockito.times(1)).findById("b");
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(2, cache.getMisses());
+	}
+}
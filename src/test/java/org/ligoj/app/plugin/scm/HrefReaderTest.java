@@ -0,0 +1,41 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link HrefReader}
+ */
+public class HrefReaderTest {
+
+	private static final String CONTENT = "<pre><a href=\"/\">Parent</a> <<a href=\"one/\">one/</a>"
+			+ "<a title=\"x\"><a href=\"two/\">two/</a></pre>";
+
+	@Test
+	public void read() throws IOException {
+		final List<String> hrefs = new ArrayList<>();
+		Assertions.assertTrue(HrefReader.read(new StringReader(CONTENT), hrefs::add));
+		Assertions.assertEquals(Arrays.asList("/", "one/", "two/"), hrefs);
+	}
+
+	@Test
+	public void readTerminated() throws IOException {
+		final List<String> hrefs = new ArrayList<>();
+		Assertions.assertFalse(HrefReader.read(new StringReader(CONTENT), h -> hrefs.add(h) && !h.equals("one/")));
+		Assertions.assertEquals(Arrays.asList("/", "one/"), hrefs);
+	}
+
+	@Test
+	public void readNoLink() throws IOException {
+		Assertions.assertTrue(HrefReader.read(new StringReader("<html>some</html>"), h -> {
+			Assertions.fail("No link expected");
+			return true;
+		}));
+	}
+}
@@ -1,16 +1,31 @@
 package org.ligoj.app.plugin.scm;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityNotFoundException;
+import javax.ws.rs.ForbiddenException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ConnectionCallback;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -21,17 +36,26 @@ import org.junit.jupiter.api.Test;
 import org.ligoj.app.AbstractServerTest;
 import org.ligoj.app.MatcherUtil;
 import org.ligoj.app.api.SubscriptionStatusWithData;
+import org.ligoj.app.dao.ProjectRepository;
+import org.ligoj.app.model.Project;
+import org.ligoj.app.model.Subscription;
 import org.ligoj.app.resource.node.ParameterValueResource;
 import org.ligoj.app.resource.subscription.SubscriptionResource;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.json.InMemoryPagination;
+import org.ligoj.bootstrap.core.json.TableItem;
+import org.ligoj.bootstrap.core.resource.BusinessException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Test class of {@link AbstractIndexBasedPluginResource}
  */
@@ -70,6 +94,7 @@ public class IndexBasedPluginResourceTest extends AbstractServerTest {
 				Mockito.when(subscriptionResource.getParametersNoCheck(1)).thenReturn(parameters);
 				IndexBasedPluginResourceTest.this.subscriptionResource = subscriptionResource;
 
+				projectRepository = Mockito.mock(ProjectRepository.class);
 				pvResource = Mockito.mock(ParameterValueResource.class);
 				Mockito.when(pvResource.getNodeParameters("service:impl:node")).thenReturn(parameters);
 
@@ -119,6 +144,36 @@ public class IndexBasedPluginResourceTest extends AbstractServerTest {
 				.checkSubscriptionStatus(subscriptionResource.getParametersNoCheck(1));
 		Assertions.assertTrue(nodeStatusWithData.getStatus().isUp());
 		Assertions.assertEquals(1, nodeStatusWithData.getData().get("info"));
+		Assertions.assertNull(nodeStatusWithData.getData().get("metadata"));
+	}
+
+	@Test
+	public void checkSubscriptionStatusMetadata() throws Exception {
+		resource.metadataScript = "metadata";
+		final RepositoryMetadata metadata = new RepositoryMetadata();
+		resource.metadataEnricher.shutdown();
+		resource.metadataEnricher = Mockito.mock(MetadataEnricher.class);
+		Mockito.when(resource.metadataEnricher.get(ArgumentMatchers.eq("http://localhost:" + MOCK_PORT + "/my-repo/"),
+				ArgumentMatchers.any())).thenReturn(metadata);
+		prepareMockRepository();
+		final SubscriptionStatusWithData nodeStatusWithData = resource
+				.checkSubscriptionStatus(subscriptionResource.getParametersNoCheck(1));
+		Assertions.assertEquals(1, nodeStatusWithData.getData().get("info"));
+		Assertions.assertSame(metadata, nodeStatusWithData.getData().get("metadata"));
+	}
+
+	@Test
+	public void checkSubscriptionStatusDeleted() throws Exception {
+		resource.metadataScript = "metadata";
+		resource.metadataEnricher.shutdown();
+		resource.metadataEnricher = Mockito.mock(MetadataEnricher.class);
+		Mockito.when(resource.metadataEnricher.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+				.thenReturn(new RepositoryMetadata());
+		httpServer.start();
+
+		// The collected metadata do not hide a deleted repository
+		Assertions.assertThrows(ValidationJsonException.class,
+				() -> resource.checkSubscriptionStatus(subscriptionResource.getParametersNoCheck(1)));
 	}
 
 	private void prepareMockRepository() throws IOException {
@@ -176,6 +231,399 @@ public class IndexBasedPluginResourceTest extends AbstractServerTest {
 		Assertions.assertEquals("has-evamed", projects.get(0).getName());
 	}
 
+	@Test
+	public void findAllByNamePage() throws Exception {
+		prepareMockAdmin();
+		final TableItem<NamedBean<String>> page = resource.findAllByNamePage("service:impl:node", "as-", 1, 3, "-name");
+		Assertions.assertEquals(5, page.getRecordsTotal());
+		Assertions.assertEquals(4, page.getRecordsFiltered());
+		Assertions.assertEquals(1, page.getData().size());
+		Assertions.assertEquals("has-evamed", page.getData().get(0).getId());
+	}
+
+	@Test
+	public void findAllByNameCached() throws Exception {
+		prepareMockAdmin();
+		Assertions.assertEquals(4, resource.findAllByName("service:impl:node", "as-").size());
+		Assertions.assertEquals(1, resource.findAllByName("service:impl:node", "evamed").size());
+		httpServer.verify(1, getRequestedFor(urlPathEqualTo("/")));
+		Mockito.verify(resource.pvResource, Mockito.times(1)).getNodeParameters("service:impl:node");
+
+		// Parameters are resolved again after an invalidation
+		resource.invalidateParameters();
+		resource.findAllByName("service:impl:node", "as-");
+		Mockito.verify(resource.pvResource, Mockito.times(2)).getNodeParameters("service:impl:node");
+	}
+
+	@Test
+	public void existsFromIndex() throws Exception {
+		prepareMockAdmin();
+		resource.findAllByName("service:impl:node", "as-");
+
+		// Answered without proxy agent
+		Assertions.assertTrue(resource.exists("service:impl:node", "has-evamed"));
+		Assertions.assertFalse(resource.exists("service:impl:node", "any"));
+		final Map<String, Boolean> result = resource.existsAll("service:impl:node", Arrays.asList("has-evamed", "any"));
+		Assertions.assertTrue(result.get("has-evamed"));
+		Assertions.assertFalse(result.get("any"));
+	}
+
+	@Test
+	public void existsFromIndexNotListable() throws Exception {
+		prepareMockAdmin();
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1")));
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		resource.findAllByName("service:impl:node", "as-");
+
+		// A nested repository cannot be listed by the root index, the proxy agent answers
+		Assertions.assertTrue(resource.exists("service:impl:node", "has-evamed/nested"));
+		final Map<String, Boolean> result = resource.existsAll("service:impl:node",
+				Arrays.asList("any", "has-evamed/nested"));
+		Assertions.assertEquals(Arrays.asList("any", "has-evamed/nested"), new ArrayList<>(result.keySet()));
+		Assertions.assertFalse(result.get("any"));
+		Assertions.assertTrue(result.get("has-evamed/nested"));
+		httpServer.verify(2, postRequestedFor(urlPathEqualTo("/agent")));
+	}
+
+	@Test
+	public void findAllByNameAsync() throws Exception {
+		prepareMockAdmin();
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		resource.findAllByNameAsync("service:impl:node", "as-", 500, response);
+		Mockito.verify(response).setTimeout(AbstractIndexBasedPluginResource.MAX_ASYNC_TIMEOUT, TimeUnit.SECONDS);
+		Mockito.verify(response, Mockito.timeout(5000)).resume(ArgumentMatchers.<List<?>>argThat(l -> l.size() == 4));
+	}
+
+	@Test
+	public void existsAsync() throws Exception {
+		prepareMockAdmin();
+		resource.findAllByName("service:impl:node", "as-");
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		resource.existsAsync("service:impl:node", "has-evamed", 0, response);
+		Mockito.verify(response).setTimeout(1, TimeUnit.SECONDS);
+		Mockito.verify(response, Mockito.timeout(5000)).resume(Boolean.TRUE);
+	}
+
+	@Test
+	public void getIndexChanges() throws Exception {
+		prepareMockAdmin();
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		resource.getIndexChanges("service:impl:node", 0, 500, response);
+		Mockito.verify(response).setTimeout(AbstractIndexBasedPluginResource.MAX_CHANGES_TIMEOUT, TimeUnit.SECONDS);
+		Mockito.verify(response, Mockito.never()).resume(ArgumentMatchers.any(IndexChanges.class));
+
+		// Resumed by the next change of the node
+		final RepositoryIndex v1 = new RepositoryIndex("http://localhost/", Arrays.asList("a"), null, null);
+		final RepositoryIndex v2 = new RepositoryIndex("http://localhost/", Arrays.asList("a", "b"), null, null);
+		resource.indexCache.getChanges().publish("service:impl:other", v1, v2);
+		Mockito.verify(response, Mockito.never()).resume(ArgumentMatchers.any(IndexChanges.class));
+		resource.indexCache.getChanges().publish("service:impl:node", v1, v2);
+		Mockito.verify(response).resume(ArgumentMatchers.<IndexChanges>argThat(c -> c.getChanges().size() == 1
+				&& c.getChanges().get(0).getAdded().equals(Collections.singletonList("b"))));
+	}
+
+	@Test
+	public void getIndexChangesNoWait() throws Exception {
+		prepareMockAdmin();
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		resource.getIndexChanges("service:impl:node", 0, 0, response);
+		Mockito.verify(response).resume(ArgumentMatchers.<IndexChanges>argThat(c -> c.getChanges().isEmpty()));
+		Mockito.verify(response, Mockito.never()).setTimeout(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+	}
+
+	@Test
+	public void resumeAsyncFailure() {
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		final ValidationJsonException failure = new ValidationJsonException("service:url", "invalid");
+		resource.resumeAsync(response, 30, () -> {
+			throw failure;
+		});
+		Mockito.verify(response, Mockito.timeout(5000)).resume(failure);
+	}
+
+	@Test
+	public void resumeAsyncCancel() throws Exception {
+		final AsyncResponse response = Mockito.mock(AsyncResponse.class);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		resource.resumeAsync(response, 30, () -> {
+			try {
+				Thread.sleep(10000);
+			} catch (final InterruptedException e) {
+				interrupted.countDown();
+			}
+			return null;
+		});
+
+		// Simulate the client disconnection
+		final ArgumentCaptor<Object> callbacks = ArgumentCaptor.forClass(Object.class);
+		Mockito.verify(response, Mockito.times(2)).register(callbacks.capture());
+		callbacks.getAllValues().stream().filter(ConnectionCallback.class::isInstance).map(ConnectionCallback.class::cast)
+				.findFirst().get().onDisconnect(response);
+		Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void loadIndexNotModified() throws Exception {
+		httpServer.stubFor(get(urlPathEqualTo("/")).withHeader("If-None-Match", equalTo("\"v1\""))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED)));
+		httpServer.start();
+		final RepositoryIndex previous = new RepositoryIndex("http://localhost:" + MOCK_PORT + "/",
+				Collections.singletonList("has-evamed"), "\"v1\"", null);
+		final RepositoryIndex index = resource.loadIndex(parameters, previous);
+		Assertions.assertEquals(Collections.singletonList("has-evamed"), index.getNames());
+		Assertions.assertEquals("\"v1\"", index.getEtag());
+	}
+
+	@Test
+	public void loadIndexModified() throws Exception {
+		httpServer.stubFor(get(urlPathEqualTo("/")).willReturn(aResponse().withStatus(HttpStatus.SC_OK)
+				.withHeader("ETag", "\"v2\"").withBody(IOUtils.toString(
+						new ClassPathResource("mock-server/scm/index.html").getInputStream(), StandardCharsets.UTF_8))));
+		httpServer.start();
+		final RepositoryIndex index = resource.loadIndex(parameters, null);
+		Assertions.assertEquals(5, index.getNames().size());
+		Assertions.assertEquals("\"v2\"", index.getEtag());
+	}
+
+	@Test
+	public void loadIndexPagedIgnored() {
+		httpServer.stubFor(get(urlPathEqualTo("/")).willReturn(
+				aResponse().withStatus(HttpStatus.SC_OK).withBody("[{\"name\":\"one\"},{\"name\":\"two\"}]")));
+		httpServer.start();
+		parameters.put(resource.parameterUrl, "http://localhost:" + MOCK_PORT);
+		parameters.put(resource.parameterIndexFormat, "paged");
+
+		// The same page is replied whatever the requested page
+		final RepositoryIndex index = resource.loadIndex(parameters, null);
+		Assertions.assertEquals(Arrays.asList("one", "two"), index.getNames());
+		httpServer.verify(2, getRequestedFor(urlPathEqualTo("/")));
+	}
+
+	@Test
+	public void getIndexProviderUnknown() {
+		parameters.put(resource.parameterIndexFormat, "xml");
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.getIndexProvider(parameters);
+		}), "service:scm:index-format", "impl-index-format");
+	}
+
+	@Test
+	public void existsAll() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).withRequestBody(containing("has-evamed\\nany"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1\n0\n")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		resource.existsBatchScript = "exists-batch";
+		final Map<String, Boolean> result = resource.existsAll("service:impl:node",
+				Arrays.asList("has-evamed", "any", "has-evamed"));
+		Assertions.assertEquals(2, result.size());
+		Assertions.assertTrue(result.get("has-evamed"));
+		Assertions.assertFalse(result.get("any"));
+	}
+
+	@Test
+	public void existsAllOneByOne() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).withRequestBody(containing("has-evamed"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1")));
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).withRequestBody(containing("\"any\""))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("0")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		final Map<String, Boolean> result = resource.existsAll("service:impl:node", Arrays.asList("has-evamed", "any"));
+		Assertions.assertTrue(result.get("has-evamed"));
+		Assertions.assertFalse(result.get("any"));
+		httpServer.verify(2, postRequestedFor(urlPathEqualTo("/agent")));
+	}
+
+	@Test
+	public void existsAllInvalidName() {
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.existsAll("service:impl:node", Arrays.asList("any", "has evamed"));
+		}), "service:repository", "impl-repository");
+	}
+
+	@Test
+	public void existsAllNull() {
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.existsAll("service:impl:node", null);
+		}), "service:repository", "NotNull");
+	}
+
+	@Test
+	public void existsInvalidName() {
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.exists("service:impl:node", "has evamed");
+		}), "service:repository", "impl-repository");
+	}
+
+	@Test
+	public void existsAllSignedExitCode() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1 -1")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		resource.existsBatchScript = "exists-batch";
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		resource.setMeterRegistry(registry);
+		Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.existsAll("service:impl:node", Arrays.asList("has-evamed", "any"));
+		});
+
+		// The reply is valid, the agent of the batch did not reply for the second name
+		Assertions.assertEquals(1, registry.get(ScmMetrics.EXIT).tag("exit", "-1").counter().count());
+		Assertions.assertNull(registry.find(ScmMetrics.EXIT).tag("exit", ScmMetrics.INVALID).counter());
+	}
+
+	@Test
+	public void existsAllInvalidReply() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("<html>1 0</html>")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		resource.existsBatchScript = "exists-batch";
+		Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.existsAll("service:impl:node", Arrays.asList("has-evamed", "any"));
+		});
+	}
+
+	@Test
+	public void existsAllMetrics() {
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		resource.setMeterRegistry(registry);
+		existsAll();
+		Assertions.assertEquals(1, registry.get(ScmMetrics.EXIT).tag("exit", "1").counter().count());
+		Assertions.assertEquals(1, registry.get(ScmMetrics.EXIT).tag("exit", "0").counter().count());
+		Assertions.assertEquals(1, registry.get(ScmMetrics.CALL).tag("operation", "exists-batch")
+				.tag("outcome", ScmMetrics.SUCCESS).timer().count());
+
+		// Tagged by node identifier, not by URL
+		Assertions.assertEquals(2, registry.get(ScmMetrics.EXIT).tag("node", "service:impl:node").counters().size());
+	}
+
+	@Test
+	public void checkStatusNodeMetrics() throws Exception {
+		prepareMockAdmin();
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		resource.setMeterRegistry(registry);
+		Assertions.assertTrue(resource.checkStatus("service:impl:node", subscriptionResource.getParametersNoCheck(1)));
+		Assertions.assertFalse(registry.get(ScmMetrics.CALL).tag("node", "service:impl:node").timers().isEmpty());
+		Assertions.assertNull(registry.find(ScmMetrics.CALL).tag("node", "unknown").timer());
+	}
+
+	@Test
+	public void existsInvalidReplyMetrics() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent"))
+				.willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("<html>Error</html>")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		parameters.put("service:secret-key", "key");
+		final MeterRegistry registry = new SimpleMeterRegistry();
+		resource.setMeterRegistry(registry);
+		Assertions.assertThrows(RuntimeException.class, () -> resource.exists("service:impl:node", "any"));
+
+		// The reply is not used as tag
+		Assertions.assertEquals(1, registry.get(ScmMetrics.EXIT).tag("exit", ScmMetrics.INVALID).counter().count());
+	}
+
+	@Test
+	public void existsAllFailover() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1")));
+		httpServer.start();
+		final String agent = "http://localhost:" + MOCK_PORT + "/agent";
+		parameters.put("service:url-proxy-agent", "http://localhost:" + (MOCK_PORT + 1) + "/agent," + agent);
+		parameters.put("service:secret-key", "key");
+		Assertions.assertTrue(resource.existsAll("service:impl:node", Collections.singletonList("any")).get("any"));
+
+		// The reply comes from the running agent
+		final List<Map<String, Object>> agents = resource.getProxyAgents("service:impl:node");
+		Assertions.assertEquals(2, agents.size());
+		Assertions.assertEquals(agent, agents.get(1).get("url"));
+		Assertions.assertEquals(1L, agents.get(1).get("requests"));
+		Assertions.assertEquals(0L, agents.get(1).get("errors"));
+	}
+
+	@Test
+	public void existsNoFailoverOnError() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent1")).willReturn(aResponse().withStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+		httpServer.stubFor(post(urlPathEqualTo("/agent2")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("1")));
+		httpServer.start();
+		parameters.put("service:url-proxy-agent",
+				"http://localhost:" + MOCK_PORT + "/agent1,http://localhost:" + MOCK_PORT + "/agent2");
+		parameters.put("service:secret-key", "key");
+		try {
+			resource.exists("service:impl:node", "any");
+		} catch (final RuntimeException e) {
+			// The first agent replied an error
+		}
+
+		// The agent having replied is not asked again
+		httpServer.verify(1, postRequestedFor(urlPathMatching("/agent.*")));
+	}
+
+	@Test
+	public void existsAllNoAgent() {
+		httpServer.start();
+		parameters.put("service:url-proxy-agent", "http://localhost:" + MOCK_PORT + "/agent");
+		Assertions.assertThrows(ValidationJsonException.class, () -> {
+			resource.existsAll("service:impl:node", Collections.singletonList("any"));
+		});
+	}
+
+	@Test
+	public void createAsyncNotVisible() {
+		Mockito.when(subscriptionResource.checkVisibleSubscription(2)).thenThrow(new EntityNotFoundException("2"));
+		Assertions.assertThrows(EntityNotFoundException.class, () -> resource.createAsync(2));
+	}
+
+	@Test
+	public void createAsyncNotManaged() {
+		final Project project = new Project();
+		project.setId(3);
+		final Subscription subscription = new Subscription();
+		subscription.setProject(project);
+		Mockito.when(subscriptionResource.checkVisibleSubscription(2)).thenReturn(subscription);
+		Assertions.assertThrows(ForbiddenException.class, () -> resource.createAsync(2));
+		Mockito.verify(resource.projectRepository).isManageSubscription(3, null);
+		Mockito.verify(resource.pvResource, Mockito.never()).getSubscriptionParameters(2);
+	}
+
+	@Test
+	public void getSubscriptionCreationJobUnknown() {
+		Assertions.assertThrows(EntityNotFoundException.class, () -> resource.getSubscriptionCreationJob(2));
+	}
+
+	@Test
+	public void createAllNotVisible() throws InterruptedException {
+		Mockito.when(subscriptionResource.checkVisibleSubscription(2)).thenThrow(new EntityNotFoundException("2"));
+		final List<CreationResult> results = resource.createAll(Collections.singletonList(2), 1);
+		Assertions.assertEquals(1, results.size());
+		Assertions.assertEquals(CreationStatus.INVALID, results.get(0).getStatus());
+		Mockito.verify(resource.pvResource, Mockito.never()).getSubscriptionParameters(2);
+	}
+
+	@Test
+	public void executeCreationNoReply() throws InterruptedException {
+		resource.creationRateLimiter = Mockito.mock(RateLimiter.class);
+		final Map<String, String> creation = new HashMap<>();
+		creation.put("URL_PROXY_AGENT", "http://localhost:" + (MOCK_PORT + 1) + "/agent");
+		creation.put("service:secret-key", "key");
+		Assertions.assertEquals("-1", resource.executeCreation(creation).getResponse());
+
+		// The creation request is built once, for the only sent request
+		Mockito.verify(resource.creationRateLimiter).acquire(ArgumentMatchers.anyString(),
+				ArgumentMatchers.anyDouble());
+	}
+
+	@Test
+	public void getCreationJobUnknown() {
+		Assertions.assertThrows(EntityNotFoundException.class, () -> resource.getCreationJob("any"));
+	}
+
 	@Test
 	public void findAllByNameNoListing() {
 		httpServer.start();
@@ -210,4 +658,25 @@ public class IndexBasedPluginResourceTest extends AbstractServerTest {
 			// Nothing to change
 		}.toData("some"));
 	}
+
+	@Test
+	public void getNodeParametersCached() {
+		resource.getNodeParameters("service:impl:node");
+		resource.getNodeParameters("service:impl:node");
+		Mockito.verify(resource.pvResource, Mockito.times(1)).getNodeParameters("service:impl:node");
+
+		// Updated parameters
+		resource.invalidateParameters();
+		resource.getNodeParameters("service:impl:node");
+		Mockito.verify(resource.pvResource, Mockito.times(2)).getNodeParameters("service:impl:node");
+	}
+
+	@Test
+	public void destroy() {
+		resource.destroy();
+		Assertions.assertTrue(resource.asyncExecutor.isShutdown());
+		Assertions.assertThrows(BusinessException.class, () -> resource.creationJobs.submit(1, null, () -> {
+			// Nothing to create
+		}));
+	}
 }
@@ -0,0 +1,115 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link IndexChangeFeed}
+ */
+public class IndexChangeFeedTest {
+
+	private final RepositoryIndex v1 = new RepositoryIndex("http://localhost/", Arrays.asList("a", "b"), null, null);
+
+	private final RepositoryIndex v2 = new RepositoryIndex("http://localhost/", Arrays.asList("b", "c", "d"), null,
+			null);
+
+	@Test
+	public void publish() throws InterruptedException {
+		final IndexChangeFeed feed = new IndexChangeFeed();
+		feed.publish("node", v1, v2);
+		feed.publish("other", v2, v1);
+
+		// Same content, no change
+		feed.publish("node", v2, v2.touch());
+		Assertions.assertEquals(2, feed.getSequence());
+
+		final IndexChanges changes = feed.await("node", 0, 0);
+		Assertions.assertEquals(2, changes.getSequence());
+		Assertions.assertFalse(changes.isReset());
+		Assertions.assertEquals(1, changes.getChanges().size());
+		final IndexChange change = changes.getChanges().get(0);
+		Assertions.assertEquals(1, change.getSequence());
+		Assertions.assertEquals("node", change.getNode());
+		Assertions.assertEquals(Arrays.asList("c", "d"), change.getAdded());
+		Assertions.assertEquals(Collections.singletonList("a"), change.getRemoved());
+
+		// Already known changes
+		Assertions.assertTrue(feed.await("node", 2, 0).getChanges().isEmpty());
+	}
+
+	@Test
+	public void awaitChange() throws Exception {
+		final IndexChangeFeed feed = new IndexChangeFeed();
+
+		// Changes of another node are not returned to the reader
+		feed.publish("other", v1, v2);
+		final CompletableFuture<IndexChanges> changes = CompletableFuture.supplyAsync(() -> {
+			try {
+				return feed.await("node", 0, 5000);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		});
+
+		feed.publish("node", v1, v2);
+		Assertions.assertEquals(1, changes.get().getChanges().size());
+		Assertions.assertEquals(2, changes.get().getChanges().get(0).getSequence());
+	}
+
+	@Test
+	public void subscribe() {
+		final IndexChangeFeed feed = new IndexChangeFeed();
+		final List<IndexChanges> notified = new ArrayList<>();
+		feed.subscribe("node", 0, notified::add);
+		Assertions.assertTrue(notified.isEmpty());
+
+		// Notified once, by the change of the node
+		feed.publish("other", v1, v2);
+		Assertions.assertTrue(notified.isEmpty());
+		feed.publish("node", v1, v2);
+		feed.publish("node", v2, v1);
+		Assertions.assertEquals(1, notified.size());
+		Assertions.assertEquals(2, notified.get(0).getChanges().get(0).getSequence());
+
+		// Already available changes are notified immediately
+		feed.subscribe("node", 0, notified::add);
+		Assertions.assertEquals(2, notified.size());
+		Assertions.assertEquals(2, notified.get(1).getChanges().size());
+	}
+
+	@Test
+	public void subscribeCancel() {
+		final IndexChangeFeed feed = new IndexChangeFeed();
+		final List<IndexChanges> notified = new ArrayList<>();
+		feed.subscribe("node", 0, notified::add).run();
+		feed.publish("node", v1, v2);
+		Assertions.assertTrue(notified.isEmpty());
+		Assertions.assertEquals(1, feed.poll("node", 0).getChanges().size());
+	}
+
+	@Test
+	public void awaitTimeout() throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		Assertions.assertTrue(new IndexChangeFeed().await("node", 0, 100).getChanges().isEmpty());
+		Assertions.assertTrue(System.currentTimeMillis() - start >= 100);
+	}
+
+	@Test
+	public void awaitReset() throws InterruptedException {
+		final IndexChangeFeed feed = new IndexChangeFeed(1);
+		feed.publish("node", v1, v2);
+		feed.publish("node", v2, v1);
+		Assertions.assertTrue(feed.await("node", 0, 0).isReset());
+		Assertions.assertFalse(feed.await("node", 1, 0).isReset());
+
+		// Unknown sequence, such as after a restart
+		Assertions.assertTrue(feed.await("node", 5, 0).isReset());
+	}
+}
@@ -0,0 +1,81 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link IndexProvider} implementations.
+ */
+public class IndexProviderTest {
+
+	@Test
+	public void html() throws IOException {
+		final IndexProvider provider = new HtmlIndexProvider();
+		final List<String> entries = read(provider, "<a href=\"/\">Parent</a><a href=\"repo/\">repo/</a>");
+		Assertions.assertEquals(Arrays.asList("/", "repo/"), entries);
+		Assertions.assertNull(provider.toName("/"));
+		Assertions.assertEquals("repo", provider.toName("repo/"));
+		Assertions.assertTrue(provider.isAdminEntry("/"));
+		Assertions.assertFalse(provider.isAdminEntry("repo/"));
+		Assertions.assertTrue(provider.isAdminEntryRequired());
+		Assertions.assertNull(provider.getPageUrl("http://localhost/", 1));
+	}
+
+	@Test
+	public void jsonNames() throws IOException {
+		Assertions.assertEquals(Arrays.asList("a", "b"), read(new JsonIndexProvider(), "[\"a\", 1, \"b\"]"));
+	}
+
+	@Test
+	public void jsonObjects() throws IOException {
+		final IndexProvider provider = new JsonIndexProvider();
+		Assertions.assertEquals(Arrays.asList("org/a", "b", "group/c"), read(provider,
+				"{\"ok\":true,\"data\":[{\"id\":1,\"name\":\"a\",\"full_name\":\"org/a\",\"owner\":{\"name\":\"org\"}},"
+						+ "{\"name\":\"b\",\"tags\":[\"x\"]},{\"path_with_namespace\":\"group/c\",\"name\":\"c\"},{}]}"));
+		Assertions.assertFalse(provider.isAdminEntryRequired());
+		Assertions.assertTrue(provider.isAdminEntry("any"));
+	}
+
+	@Test
+	public void jsonNoArray() throws IOException {
+		Assertions.assertTrue(read(new JsonIndexProvider(), "{\"message\":\"none\"}").isEmpty());
+	}
+
+	@Test
+	public void jsonTerminated() throws IOException {
+		final List<String> entries = new ArrayList<>();
+		try (InputStream input = toStream("[\"a\",\"b\",\"c\"]")) {
+			Assertions.assertFalse(new JsonIndexProvider().read(input, e -> entries.add(e) && !e.equals("b")));
+		}
+		Assertions.assertEquals(Arrays.asList("a", "b"), entries);
+	}
+
+	@Test
+	public void pagedUrl() {
+		final IndexProvider provider = new PagedJsonIndexProvider();
+		Assertions.assertEquals("http://localhost/api?page=1&limit=100&per_page=100",
+				provider.getPageUrl("http://localhost/api", 0));
+		Assertions.assertEquals("http://localhost/api?archived=false&page=2&limit=100&per_page=100",
+				provider.getPageUrl("http://localhost/api?archived=false", 1));
+	}
+
+	private List<String> read(final IndexProvider provider, final String content) throws IOException {
+		final List<String> entries = new ArrayList<>();
+		try (InputStream input = toStream(content)) {
+			Assertions.assertTrue(provider.read(input, entries::add));
+		}
+		return entries;
+	}
+
+	private InputStream toStream(final String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
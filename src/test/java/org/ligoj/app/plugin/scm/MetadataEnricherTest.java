@@ -0,0 +1,98 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link MetadataEnricher}
+ */
+public class MetadataEnricherTest {
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private final AtomicLong now = new AtomicLong(1000);
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	private final Supplier<RepositoryMetadata> collector = () -> {
+		final RepositoryMetadata metadata = new RepositoryMetadata();
+		metadata.setBranches(counter.incrementAndGet());
+		return metadata;
+	};
+
+	@AfterEach
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void getCollected() throws Exception {
+		final MetadataEnricher enricher = new MetadataEnricher(60000, 60000, scheduler, now::get);
+
+		// First view registers the collection
+		Assertions.assertNull(enricher.get("repo", collector));
+		awaitCollections();
+		final RepositoryMetadata metadata = enricher.get("repo", collector);
+		Assertions.assertEquals(1, metadata.getBranches().intValue());
+		Assertions.assertEquals(1000, metadata.getCollected());
+
+		// Periodic collection
+		now.set(2000);
+		enricher.collectAll();
+		Assertions.assertEquals(2, enricher.get("repo", collector).getBranches().intValue());
+		Assertions.assertEquals(2000, enricher.get("repo", collector).getCollected());
+		enricher.shutdown();
+		Assertions.assertTrue(scheduler.isShutdown());
+	}
+
+	@Test
+	public void getFailure() throws Exception {
+		final MetadataEnricher enricher = new MetadataEnricher(60000, 60000, scheduler, now::get);
+		enricher.get("repo", collector);
+		awaitCollections();
+
+		// The previous metadata are dropped
+		final Supplier<RepositoryMetadata> failing = () -> {
+			throw new IllegalStateException();
+		};
+		Assertions.assertNotNull(enricher.get("repo", failing));
+		enricher.collectAll();
+		Assertions.assertNull(enricher.get("repo", failing));
+
+		// Not available metadata
+		enricher.get("repo", collector);
+		enricher.collectAll();
+		Assertions.assertNotNull(enricher.get("repo", () -> null));
+		enricher.collectAll();
+		Assertions.assertNull(enricher.get("repo", collector));
+	}
+
+	@Test
+	public void getIdle() throws Exception {
+		final MetadataEnricher enricher = new MetadataEnricher(60000, 100, scheduler, now::get);
+		enricher.get("repo", collector);
+		awaitCollections();
+		Assertions.assertEquals(1, counter.get());
+
+		// The idle repository is no more collected, the next view registers it again
+		now.addAndGet(200);
+		enricher.collectAll();
+		Assertions.assertEquals(1, counter.get());
+		Assertions.assertNull(enricher.get("repo", collector));
+	}
+
+	/**
+	 * Wait for the completion of the collections already submitted to the single thread scheduler.
+	 */
+	private void awaitCollections() throws InterruptedException, ExecutionException {
+		scheduler.submit(() -> null).get();
+	}
+}
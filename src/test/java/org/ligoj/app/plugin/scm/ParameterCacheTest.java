@@ -0,0 +1,94 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link ParameterCache}
+ */
+public class ParameterCacheTest {
+
+	private final ParameterCache cache = new ParameterCache(Collections.singleton("service:scm:password"));
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private final Supplier<Map<String, String>> loader = () -> {
+		counter.incrementAndGet();
+		final Map<String, String> parameters = new HashMap<>();
+		parameters.put("service:scm:url", "http://localhost");
+		parameters.put("service:scm:password", "secret");
+		parameters.put("service:scm:index", null);
+		return parameters;
+	};
+
+	@Test
+	public void get() {
+		final Map<String, String> parameters = cache.get("node:a", loader);
+		Assertions.assertEquals("secret", parameters.get("service:scm:password"));
+
+		// The returned map can be changed
+		parameters.remove("service:scm:password");
+		final Map<String, String> cached = cache.get("node:a", loader);
+		Assertions.assertEquals("secret", cached.get("service:scm:password"));
+		Assertions.assertEquals("http://localhost", cached.get("service:scm:url"));
+		Assertions.assertTrue(cached.containsKey("service:scm:index"));
+		Assertions.assertNotSame(parameters, cached);
+		Assertions.assertEquals(1, counter.get());
+	}
+
+	@Test
+	public void seal() {
+		final Map<String, String> parameters = loader.get();
+		final Supplier<Map<String, String>> sealed = cache.seal(parameters);
+		parameters.put("service:scm:password", "changed");
+		Assertions.assertEquals("secret", sealed.get().get("service:scm:password"));
+		Assertions.assertEquals("http://localhost", sealed.get().get("service:scm:url"));
+		Assertions.assertNotSame(sealed.get(), sealed.get());
+	}
+
+	@Test
+	public void invalidate() {
+		cache.get("node:a", loader);
+		cache.get("node:b", loader);
+		cache.invalidate("node:a");
+		cache.get("node:a", loader);
+		cache.get("node:b", loader);
+		Assertions.assertEquals(3, counter.get());
+
+		cache.clear();
+		cache.get("node:b", loader);
+		Assertions.assertEquals(4, counter.get());
+	}
+
+	@Test
+	public void getInvalidatedWhileLoading() {
+		// The parameters loaded before the invalidation are not cached
+		cache.get("node:a", () -> {
+			cache.invalidate("node:b");
+			return loader.get();
+		});
+		cache.get("node:a", loader);
+		cache.get("node:a", loader);
+		Assertions.assertEquals(2, counter.get());
+	}
+
+	@Test
+	public void getExpired() {
+		final AtomicLong now = new AtomicLong(1000);
+		final ParameterCache cache = new ParameterCache(Collections.emptySet(), 50, 10, now::get);
+		cache.get("node:a", loader);
+		now.addAndGet(50);
+		cache.get("node:a", loader);
+		Assertions.assertEquals(1, counter.get());
+		now.addAndGet(1);
+		cache.get("node:a", loader);
+		Assertions.assertEquals(2, counter.get());
+	}
+}
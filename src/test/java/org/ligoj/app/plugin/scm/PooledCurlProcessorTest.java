@@ -0,0 +1,75 @@
+package org.ligoj.app.plugin.scm;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.AbstractServerTest;
+import org.ligoj.app.resource.plugin.CurlRequest;
+
+/**
+ * Test class of {@link PooledCurlProcessor}
+ */
+public class PooledCurlProcessorTest extends AbstractServerTest {
+
+	private final HttpClientSettings settings = new HttpClientSettings(10, 1000, 60000);
+
+	@Test
+	public void process() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).withHeader("Authorization", equalTo("Basic dXNlcjpzZWNyZXQ="))
+				.withHeader("token", equalTo("key")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("0")));
+		httpServer.start();
+		try (PooledCurlProcessor processor = new PooledCurlProcessor("user", "secret", null, settings)) {
+			final CurlRequest request = new CurlRequest("POST", "http://localhost:" + MOCK_PORT + "/agent", "{}",
+					"token:key");
+			request.setSaveResponse(true);
+			Assertions.assertTrue(processor.process(request));
+			Assertions.assertEquals("0", request.getResponse());
+		}
+	}
+
+	@Test
+	public void processError() {
+		httpServer.stubFor(get(urlPathEqualTo("/")).willReturn(aResponse().withStatus(HttpStatus.SC_NOT_FOUND)));
+		httpServer.start();
+		try (PooledCurlProcessor processor = new PooledCurlProcessor(null, null, null, settings)) {
+			Assertions.assertFalse(processor.process(new CurlRequest("GET", "http://localhost:" + MOCK_PORT + "/", null)));
+		}
+	}
+
+	@Test
+	public void processTimeout() {
+		httpServer.stubFor(get(urlPathEqualTo("/")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(3000)));
+		httpServer.start();
+		try (PooledCurlProcessor processor = new PooledCurlProcessor(null, null, null, settings)) {
+			Assertions.assertFalse(processor.process(new CurlRequest("GET", "http://localhost:" + MOCK_PORT + "/", null)));
+		}
+	}
+
+	@Test
+	public void processUnreachable() {
+		try (PooledCurlProcessor processor = new PooledCurlProcessor(null, null, null, settings)) {
+			final AgentRequest request = new AgentRequest("http://localhost:" + (MOCK_PORT + 1) + "/agent", "{}");
+			Assertions.assertFalse(processor.process(request));
+			Assertions.assertTrue(request.isUnreachable());
+		}
+	}
+
+	@Test
+	public void processReachedTimeout() {
+		httpServer.stubFor(post(urlPathEqualTo("/agent")).willReturn(aResponse().withStatus(HttpStatus.SC_OK).withFixedDelay(3000)));
+		httpServer.start();
+		try (PooledCurlProcessor processor = new PooledCurlProcessor(null, null, null, settings)) {
+			final AgentRequest request = new AgentRequest("http://localhost:" + MOCK_PORT + "/agent", "{}");
+			Assertions.assertFalse(processor.process(request));
+
+			// The request may have been executed
+			Assertions.assertFalse(request.isUnreachable());
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link ProxyAgentPool}
+ */
+public class ProxyAgentPoolTest {
+
+	private final CircuitBreaker breaker = new CircuitBreaker(1, 60000, 1000, 5000);
+
+	private final ProxyAgentPool pool = new ProxyAgentPool(breaker);
+
+	@Test
+	public void split() {
+		Assertions.assertEquals(Arrays.asList("http://a", "http://b"),
+				ProxyAgentPool.split(" http://a/, http://b,,http://a"));
+		Assertions.assertEquals(Collections.emptyList(), ProxyAgentPool.split(null));
+	}
+
+	@Test
+	public void routeOutstanding() {
+		pool.start("http://a");
+		Assertions.assertEquals(Arrays.asList("http://b", "http://a"), pool.route("http://a,http://b"));
+		pool.end("http://a", true);
+		pool.start("http://b");
+		Assertions.assertEquals(Arrays.asList("http://a", "http://b"), pool.route("http://a,http://b"));
+	}
+
+	@Test
+	public void routeHealth() {
+		pool.start("http://a");
+		pool.end("http://a", false);
+		Assertions.assertEquals(Arrays.asList("http://b", "http://a"), pool.route("http://a,http://b"));
+	}
+
+	@Test
+	public void routeOpen() {
+		breaker.execute("http://a", "exists", () -> false);
+		Assertions.assertEquals(Collections.singletonList("http://b"), pool.route("http://a/,http://b"));
+		breaker.execute("http://b", "exists", () -> false);
+		Assertions.assertTrue(pool.route("http://a,http://b").isEmpty());
+	}
+
+	@Test
+	public void getStatus() {
+		pool.start("http://a");
+		pool.end("http://a", true);
+		pool.start("http://a");
+		pool.end("http://a", false);
+		pool.start("http://a");
+		final List<Map<String, Object>> status = pool.getStatus("http://a");
+		Assertions.assertEquals(1, status.size());
+		Assertions.assertEquals("http://a", status.get(0).get("url"));
+		Assertions.assertEquals(CircuitBreaker.State.CLOSED, status.get(0).get("state"));
+		Assertions.assertEquals(1, status.get(0).get("outstanding"));
+		Assertions.assertEquals(2L, status.get(0).get("requests"));
+		Assertions.assertEquals(1L, status.get(0).get("errors"));
+		Assertions.assertEquals(2L, status.get(0).get("throughput"));
+		Assertions.assertTrue((Double) status.get(0).get("health") < 1);
+	}
+}
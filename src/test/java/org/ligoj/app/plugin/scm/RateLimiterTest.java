@@ -0,0 +1,39 @@
+package org.ligoj.app.plugin.scm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link RateLimiter}
+ */
+public class RateLimiterTest {
+
+	@Test
+	public void acquire() throws InterruptedException {
+		final RateLimiter limiter = new RateLimiter(20);
+		final long start = System.currentTimeMillis();
+		limiter.acquire("a");
+		limiter.acquire("b");
+		limiter.acquire("a");
+		limiter.acquire("a");
+
+		// Two intervals of 50ms for the key "a", none for "b"
+		final long elapsed = System.currentTimeMillis() - start;
+		Assertions.assertTrue(elapsed >= 90, "Elapsed " + elapsed);
+		Assertions.assertTrue(elapsed < 1000, "Elapsed " + elapsed);
+	}
+
+	@Test
+	public void acquireRate() throws InterruptedException {
+		final RateLimiter limiter = new RateLimiter(1);
+		final long start = System.currentTimeMillis();
+		limiter.acquire("a", 20);
+		limiter.acquire("a", 20);
+		limiter.acquire("a", 20);
+
+		// Two intervals of 50ms instead of the default 1s
+		final long elapsed = System.currentTimeMillis() - start;
+		Assertions.assertTrue(elapsed >= 90, "Elapsed " + elapsed);
+		Assertions.assertTrue(elapsed < 1000, "Elapsed " + elapsed);
+	}
+}
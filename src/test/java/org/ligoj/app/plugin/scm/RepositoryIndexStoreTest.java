@@ -0,0 +1,176 @@
+package org.ligoj.app.plugin.scm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link RepositoryIndexStore}
+ */
+public class RepositoryIndexStoreTest {
+
+	private Path directory;
+
+	private RepositoryIndexStore store;
+
+	@BeforeEach
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("scm-index");
+		store = new RepositoryIndexStore(directory.resolve("store"));
+	}
+
+	@AfterEach
+	public void deleteDirectory() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void saveAndLoad() {
+		final RepositoryIndex index = new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "Élan-ligoj"),
+				"\"v1\"", null);
+		store.save("service:scm:git:test", index);
+
+		final RepositoryIndex restored = store.load("service:scm:git:test");
+		Assertions.assertEquals("http://localhost/", restored.getUrl());
+		Assertions.assertEquals(Arrays.asList("ligoj", "Élan-ligoj"), restored.getNames());
+		Assertions.assertEquals("\"v1\"", restored.getEtag());
+		Assertions.assertNull(restored.getLastModified());
+		Assertions.assertEquals(index.getTimestamp(), restored.getTimestamp());
+		Assertions.assertEquals(Collections.singletonList("Élan-ligoj"), restored.search("elan"));
+	}
+
+	@Test
+	public void loadNoSnapshot() {
+		Assertions.assertNull(store.load("service:scm:git:test"));
+	}
+
+	@Test
+	public void loadCorrupted() throws IOException {
+		store.save("service:scm:git:test", new RepositoryIndex("http://localhost/", Arrays.asList("ligoj"), null, null));
+		try (Stream<Path> files = Files.list(directory.resolve("store"))) {
+			final Path file = files.findFirst().get();
+			Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 12));
+		}
+		Assertions.assertNull(store.load("service:scm:git:test"));
+	}
+
+	@Test
+	public void loadInvalidLength() throws IOException {
+		store.save("service:scm:git:test", new RepositoryIndex("http://localhost/", Arrays.asList("ligoj"), null, null));
+		try (Stream<Path> files = Files.list(directory.resolve("store"))) {
+			final Path file = files.findFirst().get();
+			final byte[] bytes = Files.readAllBytes(file);
+
+			// Length of the node identifier
+			Arrays.fill(bytes, 8, 12, (byte) 0x7f);
+			Files.write(file, bytes);
+		}
+		Assertions.assertNull(store.load("service:scm:git:test"));
+	}
+
+	@Test
+	public void loadThenReplace() {
+		store.save("service:scm:git:test", new RepositoryIndex("http://localhost/", Arrays.asList("ligoj"), null, null));
+		Assertions.assertNotNull(store.load("service:scm:git:test"));
+
+		// The restored snapshot is no more open
+		store.save("service:scm:git:test", new RepositoryIndex("http://localhost/", Arrays.asList("other"), null, null));
+		Assertions.assertEquals(Arrays.asList("other"), store.load("service:scm:git:test").getNames());
+		store.delete("service:scm:git:test");
+		Assertions.assertNull(store.load("service:scm:git:test"));
+	}
+
+	@Test
+	public void restoreInCache() throws InterruptedException {
+		store.save("service:scm:git:test", RepositoryIndex.restore("http://localhost/",
+				Arrays.asList("ligoj"), null, null, 0));
+		final RepositoryIndexCache cache = new RepositoryIndexCache(60000, 60000, 10, store);
+		final AtomicInteger loads = new AtomicInteger();
+
+		// The snapshot is served at once, and reconciled in the background
+		final RepositoryIndex index = cache.get("service:scm:git:test", "http://localhost/", previous -> {
+			loads.incrementAndGet();
+			return new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "plugin"), null, null);
+		});
+		Assertions.assertEquals(Collections.singletonList("ligoj"), index.getNames());
+		for (int i = 0; i < 50 && store.load("service:scm:git:test").getNames().size() == 1; i++) {
+			Thread.sleep(100);
+		}
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(Arrays.asList("ligoj", "plugin"), store.load("service:scm:git:test").getNames());
+	}
+
+	@Test
+	public void restoreOnlyOnColdStart() {
+		store.save("service:scm:git:test", RepositoryIndex.restore("http://localhost/",
+				Arrays.asList("ligoj"), null, null, System.currentTimeMillis()));
+		final RepositoryIndexCache cache = new RepositoryIndexCache(60000, -1, 10, store);
+		final RepositoryIndex index = new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "plugin"), null,
+				null);
+		Assertions.assertEquals(Collections.singletonList("ligoj"),
+				cache.get("service:scm:git:test", "http://localhost/", previous -> index).getNames());
+
+		// Expired entry: reloaded synchronously instead of restoring the snapshot again
+		Assertions.assertSame(index, cache.get("service:scm:git:test", "http://localhost/", previous -> index));
+	}
+
+	@Test
+	public void invalidate() {
+		final RepositoryIndex index = RepositoryIndex.restore("http://localhost/", Arrays.asList("ligoj"), null, null,
+				System.currentTimeMillis());
+		store.save("service:scm:git:test", index);
+		final RepositoryIndexCache cache = new RepositoryIndexCache(60000, 60000, 10, store);
+		cache.invalidate("service:scm:git:test");
+
+		// The snapshot is neither restored nor considered as up to date
+		Assertions.assertNull(store.load("service:scm:git:test"));
+		Assertions.assertNull(cache.getFresh("service:scm:git:test", "http://localhost/"));
+		final RepositoryIndex reloaded = new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "plugin"),
+				null, null);
+		Assertions.assertSame(reloaded, cache.get("service:scm:git:test", "http://localhost/", previous -> reloaded));
+	}
+
+	@Test
+	public void invalidatePublish() {
+		final RepositoryIndexCache cache = new RepositoryIndexCache(60000, 60000, 10, null);
+		cache.get("service:scm:git:test", "http://localhost/",
+				previous -> new RepositoryIndex("http://localhost/", Arrays.asList("ligoj"), null, null));
+		cache.invalidate("service:scm:git:test");
+
+		// The reload is compared to the evicted snapshot
+		cache.get("service:scm:git:test", "http://localhost/", previous -> {
+			Assertions.assertNull(previous);
+			return new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "plugin"), null, null);
+		});
+		final IndexChanges changes = cache.getChanges().poll("service:scm:git:test", 0);
+		Assertions.assertEquals(1, changes.getChanges().size());
+		Assertions.assertEquals(Collections.singletonList("plugin"), changes.getChanges().get(0).getAdded());
+	}
+
+	@Test
+	public void expiredPublish() {
+		final RepositoryIndexCache cache = new RepositoryIndexCache(60000, -1, 10, null);
+		cache.get("service:scm:git:test", "http://localhost/",
+				previous -> new RepositoryIndex("http://localhost/", Arrays.asList("ligoj", "plugin"), null, null));
+
+		// Expired entry, then another URL
+		cache.get("service:scm:git:test", "http://localhost/",
+				previous -> new RepositoryIndex("http://localhost/", Arrays.asList("ligoj"), null, null));
+		cache.get("service:scm:git:test", "http://other/",
+				previous -> new RepositoryIndex("http://other/", Arrays.asList("ligoj", "other"), null, null));
+		final IndexChanges changes = cache.getChanges().poll("service:scm:git:test", 0);
+		Assertions.assertEquals(2, changes.getChanges().size());
+		Assertions.assertEquals(Collections.singletonList("plugin"), changes.getChanges().get(0).getRemoved());
+		Assertions.assertEquals(Collections.singletonList("other"), changes.getChanges().get(1).getAdded());
+	}
+}
@@ -0,0 +1,78 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class of {@link RepositoryIndex}
+ */
+public class RepositoryIndexTest {
+
+	private final RepositoryIndex index = new RepositoryIndex("http://localhost/",
+			Arrays.asList("my-ligoj", "ligoj-plugin", "ligoj", "Élan-ligoj", "other"), null, null);
+
+	@Test
+	public void searchRelevance() {
+		Assertions.assertEquals(Arrays.asList("ligoj", "ligoj-plugin", "Élan-ligoj", "my-ligoj"),
+				index.search("LIGOJ"));
+	}
+
+	@Test
+	public void contains() {
+		Assertions.assertTrue(index.contains("ligoj-plugin"));
+		Assertions.assertTrue(index.touch().contains("Élan-ligoj"));
+		Assertions.assertFalse(index.contains("LIGOJ"));
+		Assertions.assertFalse(index.contains("ligoj-"));
+		Assertions.assertFalse(index.contains("ligoj/plugin"));
+	}
+
+	@Test
+	public void isListable() {
+		Assertions.assertTrue(RepositoryIndex.isListable("ligoj-plugin"));
+		Assertions.assertFalse(RepositoryIndex.isListable("ligoj/plugin"));
+	}
+
+	@Test
+	public void searchLimit() {
+		Assertions.assertEquals(Arrays.asList("ligoj", "ligoj-plugin"), index.search("ligoj", 2));
+	}
+
+	@Test
+	public void searchAccent() {
+		Assertions.assertEquals(Collections.singletonList("Élan-ligoj"), index.search("elan"));
+	}
+
+	@Test
+	public void searchShortCriteria() {
+		Assertions.assertEquals(Collections.singletonList("other"), index.search("er"));
+		Assertions.assertEquals(Collections.singletonList("ligoj-plugin"), index.search("in"));
+	}
+
+	@Test
+	public void searchPage() {
+		final Page<String> page = index.search("ligoj", PageRequest.of(1, 2));
+		Assertions.assertEquals(Arrays.asList("Élan-ligoj", "my-ligoj"), page.getContent());
+		Assertions.assertEquals(4, page.getTotalElements());
+	}
+
+	@Test
+	public void searchPageByName() {
+		Assertions.assertEquals(Arrays.asList("Élan-ligoj", "ligoj"),
+				index.search("ligoj", PageRequest.of(0, 2, Sort.by(RepositoryIndex.SORT_NAME))).getContent());
+		Assertions.assertEquals(Arrays.asList("my-ligoj", "ligoj-plugin"), index
+				.search("ligoj", PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, RepositoryIndex.SORT_NAME)))
+				.getContent());
+	}
+
+	@Test
+	public void searchNoMatch() {
+		Assertions.assertTrue(index.search("unknown").isEmpty());
+		Assertions.assertEquals(5, index.search("").size());
+	}
+}
@@ -0,0 +1,72 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link ScmExecutors}
+ */
+public class ScmExecutorsTest {
+
+	@Test
+	public void newThreadFactory() {
+		final ThreadFactory factory = ScmExecutors.newThreadFactory("scm-test");
+		final Thread thread = factory.newThread(() -> {
+			// Nothing to do
+		});
+		Assertions.assertEquals("scm-test-0", thread.getName());
+		Assertions.assertTrue(thread.isDaemon());
+
+		// Distinct names
+		Assertions.assertEquals("scm-test-1", factory.newThread(() -> {
+			// Nothing to do
+		}).getName());
+	}
+
+	@Test
+	public void forkJoin() throws InterruptedException {
+		final ExecutorService executor = ScmExecutors.newExecutor("scm-test", 2);
+		final Map<String, Callable<Integer>> tasks = new LinkedHashMap<>();
+		tasks.put("b", () -> 2);
+		tasks.put("a", () -> 1);
+		final Map<String, Integer> results = ScmExecutors.forkJoin(executor, tasks);
+		Assertions.assertEquals(Arrays.asList("b", "a"), Arrays.asList(results.keySet().toArray()));
+		Assertions.assertEquals(1, results.get("a").intValue());
+	}
+
+	@Test
+	public void forkJoinFailure() throws InterruptedException {
+		final ExecutorService executor = ScmExecutors.newExecutor("scm-test", 2);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final Map<String, Callable<Integer>> tasks = new LinkedHashMap<>();
+		tasks.put("a", () -> {
+			throw new IllegalArgumentException();
+		});
+		tasks.put("b", () -> {
+			try {
+				Thread.sleep(10000);
+			} catch (final InterruptedException e) {
+				cancelled.countDown();
+			}
+			return 2;
+		});
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ScmExecutors.forkJoin(executor, tasks));
+
+		// The other tasks are cancelled
+		Assertions.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void getNodeConcurrency() {
+		Assertions.assertEquals(ScmExecutors.DEFAULT_NODE_CONCURRENCY, ScmExecutors.getNodeConcurrency());
+	}
+}
@@ -2,6 +2,11 @@ package org.ligoj.app.plugin.scm;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
@@ -10,9 +15,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.ligoj.app.AbstractAppTest;
+import org.ligoj.app.dao.NodeRepository;
 import org.ligoj.app.model.Node;
 import org.ligoj.app.model.Parameter;
+import org.ligoj.bootstrap.core.NamedBean;
+import org.ligoj.bootstrap.core.security.SecurityHelper;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -40,6 +52,75 @@ public class ScmResourceTest extends AbstractAppTest {
 		Assertions.assertEquals("service:scm", resource.getKey());
 	}
 
+	@Test
+	public void findAllByNameFederated() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final AbstractIndexBasedPluginResource git = Mockito.mock(AbstractIndexBasedPluginResource.class);
+		Mockito.when(git.getKey()).thenReturn("service:scm:git");
+		Mockito.when(git.findAllByName("service:scm:git:fast", "repo"))
+				.thenReturn(Arrays.asList(new NamedBean<>("my-repo", "my-repo"), new NamedBean<>("repo", "repo")));
+		Mockito.when(git.findAllByName("service:scm:git:slow", "repo")).thenAnswer(i -> {
+			try {
+				// Never answering node, until the end of this test
+				release.await();
+			} catch (final InterruptedException e) {
+				cancelled.countDown();
+			}
+			return Collections.emptyList();
+		});
+		final AbstractIndexBasedPluginResource svn = Mockito.mock(AbstractIndexBasedPluginResource.class);
+		Mockito.when(svn.getKey()).thenReturn("service:scm:svn");
+		Mockito.when(svn.findAllByName("service:scm:svn:dig", "repo"))
+				.thenReturn(Arrays.asList(new NamedBean<>("repository", "repository"), new NamedBean<>("repo", "repo")));
+		Mockito.when(svn.findAllByName("service:scm:svn:down", "repo")).thenThrow(new IllegalStateException());
+
+		final ScmResource scm = new ScmResource();
+		scm.plugins = Arrays.asList(git, svn);
+		scm.nodeRepository = Mockito.mock(NodeRepository.class);
+		scm.securityHelper = Mockito.mock(SecurityHelper.class);
+		Mockito.when(scm.securityHelper.getLogin()).thenReturn("junit");
+
+		// The node "service:scm:svn:hidden" is not visible by the user
+		Mockito.when(scm.nodeRepository.findAllVisible(ArgumentMatchers.eq("junit"), ArgumentMatchers.eq(""),
+				ArgumentMatchers.eq("service:scm"), ArgumentMatchers.any(Pageable.class)))
+				.thenReturn(new PageImpl<>(Arrays.asList(newNode("service:scm"), newNode("service:scm:git"),
+						newNode("service:scm:git:fast"), newNode("service:scm:git:slow"),
+						newNode("service:scm:svn:dig"), newNode("service:scm:svn:down"))));
+
+		try {
+			final FederatedSearch result = scm.findAllByName("repo", 1);
+
+			// Partial result, ranked across the nodes
+			Assertions.assertEquals(Arrays.asList("service:scm:git:slow", "service:scm:svn:down"),
+					result.getIncomplete());
+			Assertions.assertEquals(Arrays.asList("repo", "repo", "repository", "my-repo"),
+					result.getMatches().stream().map(NodeMatch::getName).collect(Collectors.toList()));
+			Assertions.assertEquals(Arrays.asList("service:scm:git:fast", "service:scm:svn:dig",
+					"service:scm:svn:dig", "service:scm:git:fast"),
+					result.getMatches().stream().map(NodeMatch::getNode).collect(Collectors.toList()));
+
+			// The late search is cancelled
+			Assertions.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+		}
+
+		// The visible nodes are fetched once, the other nodes are not searched
+		Mockito.verify(scm.nodeRepository).findAllVisible(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+				ArgumentMatchers.anyString(), ArgumentMatchers.any(Pageable.class));
+		Mockito.verify(scm.nodeRepository, Mockito.never()).findOneVisible(ArgumentMatchers.anyString(),
+				ArgumentMatchers.anyString());
+		Mockito.verify(svn, Mockito.never()).findAllByName("service:scm:svn:hidden", "repo");
+		scm.destroy();
+	}
+
+	private Node newNode(final String id) {
+		final Node node = new Node();
+		node.setId(id);
+		return node;
+	}
+
 	@Test
 	public void getInstalledEntities() {
 		Assertions.assertArrayEquals(new Class<?>[] { Node.class, Parameter.class },
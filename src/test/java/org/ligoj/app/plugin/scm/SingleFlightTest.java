@@ -0,0 +1,57 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link SingleFlight}
+ */
+public class SingleFlightTest {
+
+	@Test
+	public void executeShared() throws Exception {
+		final SingleFlight<String, Integer> flight = new SingleFlight<>();
+		final AtomicInteger counter = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> flight.execute("a", () -> {
+			started.countDown();
+			await(release);
+			return counter.incrementAndGet();
+		}));
+		started.await();
+		final CompletableFuture<Integer> second = CompletableFuture
+				.supplyAsync(() -> flight.execute("a", counter::incrementAndGet));
+
+		// Let the second caller join the in flight execution
+		Thread.sleep(100);
+		release.countDown();
+		Assertions.assertEquals(1, first.get().intValue());
+		Assertions.assertEquals(1, second.get().intValue());
+		Assertions.assertEquals(1, counter.get());
+
+		// Completed executions are not shared
+		Assertions.assertEquals(2, flight.execute("a", counter::incrementAndGet).intValue());
+	}
+
+	@Test
+	public void executeFailure() {
+		final SingleFlight<String, Integer> flight = new SingleFlight<>();
+		Assertions.assertThrows(IllegalStateException.class, () -> flight.execute("a", () -> {
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals(1, flight.execute("a", () -> 1).intValue());
+	}
+
+	private void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
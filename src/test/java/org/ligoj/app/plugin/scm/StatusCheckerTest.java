@@ -0,0 +1,125 @@
+package org.ligoj.app.plugin.scm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+
+/**
+ * Test class of {@link StatusChecker}
+ */
+public class StatusCheckerTest {
+
+	@Test
+	public void checkCached() {
+		final StatusChecker checker = new StatusChecker();
+		final AtomicInteger counter = new AtomicInteger();
+		Assertions.assertEquals(1, checker.check("a", counter::incrementAndGet).intValue());
+		Assertions.assertEquals(1, checker.check("a", counter::incrementAndGet).intValue());
+		Assertions.assertEquals(2, checker.check("b", counter::incrementAndGet).intValue());
+	}
+
+	@Test
+	public void checkFailureCached() {
+		final StatusChecker checker = new StatusChecker();
+		final AtomicInteger counter = new AtomicInteger();
+		final Supplier<Boolean> check = () -> {
+			counter.incrementAndGet();
+			throw new IllegalStateException();
+		};
+		Assertions.assertThrows(IllegalStateException.class, () -> checker.check("a", check));
+		Assertions.assertThrows(IllegalStateException.class, () -> checker.check("a", check));
+		Assertions.assertEquals(1, counter.get());
+	}
+
+	@Test
+	public void checkTimeout() {
+		final StatusChecker checker = new StatusChecker(50, 1000, 2);
+		Assertions.assertThrows(BusinessException.class, () -> checker.check("a", () -> {
+			try {
+				Thread.sleep(5000);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		}));
+	}
+
+	@Test
+	public void checkSingleFlight() throws Exception {
+		final StatusChecker checker = new StatusChecker(5000, 1000, 2);
+		final AtomicInteger counter = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Supplier<Integer> check = () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return counter.incrementAndGet();
+		};
+		final CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> checker.check("a", check));
+		started.await();
+		final CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> checker.check("a", check));
+		release.countDown();
+		Assertions.assertEquals(1, first.get().intValue());
+		Assertions.assertEquals(1, second.get().intValue());
+		Assertions.assertEquals(1, counter.get());
+	}
+
+	@Test
+	public void getTimeout() {
+		final StatusChecker checker = new StatusChecker(1000, 1000, 2);
+		Assertions.assertEquals(300000, StatusChecker.getTimeout(300000));
+
+		// The request timeout is bounded by the check deadline
+		final int timeout = checker.check("a", () -> StatusChecker.getTimeout(300000));
+		Assertions.assertTrue(timeout > 0 && timeout <= 1000);
+		Assertions.assertEquals(10, checker.check("b", () -> StatusChecker.getTimeout(10)).intValue());
+	}
+
+	@Test
+	public void checkBusyNotCached() {
+		final StatusChecker checker = new StatusChecker(50, 1000, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Assertions.assertThrows(BusinessException.class, () -> checker.check("hung", () -> {
+			while (release.getCount() > 0) {
+				try {
+					release.await();
+				} catch (final InterruptedException e) {
+					// Not interruptible, as a blocking socket read
+				}
+			}
+			return true;
+		}));
+
+		// The queued check is not started, so its failure is not kept
+		Assertions.assertThrows(BusinessException.class, () -> checker.check("a", () -> true));
+		release.countDown();
+		Assertions.assertTrue(checker.check("a", () -> true));
+	}
+
+	@Test
+	public void checkAll() {
+		final StatusChecker checker = new StatusChecker(1000, 1000, 2);
+		final Map<String, Supplier<Boolean>> checks = new LinkedHashMap<>();
+		checks.put("up", () -> true);
+		checks.put("down", () -> false);
+		checks.put("error", () -> {
+			throw new IllegalStateException();
+		});
+		final Map<String, Boolean> status = checker.checkAll(checks);
+		Assertions.assertEquals(3, status.size());
+		Assertions.assertTrue(status.get("up"));
+		Assertions.assertFalse(status.get("down"));
+		Assertions.assertFalse(status.get("error"));
+	}
+}